@@ -0,0 +1,104 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import com.agencia.travelagencyapi.TravelAgencyApiApplication;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.service.ViagemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Requisições por segundo em endpoints autenticados com HTTP Basic, pela rede local, com e sem o cache
+// de credenciais verificadas. "sem-cache" expira cada credencial na hora (ttl 0s): toda requisição paga
+// o BCrypt, como antes do cache. O cache de usuários fica ligado nos dois casos, isolando o ganho do BCrypt
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(4)
+public class AutenticacaoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Servidor {
+
+        @Param({"cache", "sem-cache"})
+        public String credenciais;
+
+        ConfigurableApplicationContext contexto;
+        HttpClient http;
+        URI saude;
+        URI reserva;
+        String autorizacao;
+
+        @Setup(Level.Trial)
+        public void iniciar() {
+            contexto = new SpringApplicationBuilder(TravelAgencyApiApplication.class)
+                    .run("--server.port=0",
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=WARN",
+                            "--travelagency.seguranca.cache-credenciais-ttl=" + (credenciais.equals("cache") ? "5m" : "0s"),
+                            "--spring.jpa.properties.hibernate.generate_statistics=false");
+            String porta = contexto.getEnvironment().getProperty("local.server.port");
+
+            LocalDate partida = ContextoAplicacao.INICIO;
+            Long viagemId = contexto.getBean(ViagemService.class).criarViagem(new Viagem("Reservas", partida, partida.plusDays(7),
+                    new BigDecimal("1000.00"), "Viagem usada no benchmark de autenticação", Integer.MAX_VALUE, "ECONOMICA")).getId();
+
+            http = HttpClient.newHttpClient();
+            saude = URI.create("http://localhost:" + porta + "/actuator/health");
+            reserva = URI.create("http://localhost:" + porta + "/api/viagens/" + viagemId + "/reservar");
+            autorizacao = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            contexto.close();
+        }
+    }
+
+    // Endpoint barato: o tempo é quase todo da autenticação
+    @Benchmark
+    public int saude(Servidor servidor) throws IOException, InterruptedException {
+        return enviar(servidor, HttpRequest.newBuilder(servidor.saude).GET());
+    }
+
+    @Benchmark
+    public int reservar(Servidor servidor) throws IOException, InterruptedException {
+        return enviar(servidor, HttpRequest.newBuilder(servidor.reserva)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"quantidade\":1}")));
+    }
+
+    private static int enviar(Servidor servidor, HttpRequest.Builder requisicao) throws IOException, InterruptedException {
+        int status = servidor.http.send(requisicao.header("Authorization", servidor.autorizacao).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("Resposta inesperada: " + status);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,108 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import com.agencia.travelagencyapi.TravelAgencyApiApplication;
+import com.agencia.travelagencyapi.model.Avaliacao;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.agencia.travelagencyapi.service.ViagemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Aplicação completa sobre um H2 em memória, populada com uma massa de dados determinística.
+// O tamanho vem do parâmetro "viagens" (ex.: -p viagens=10000). Por padrão os caches ficam desligados,
+// para que as medições reflitam as consultas, e não acertos de cache (-p cache=true para comparar).
+@State(Scope.Benchmark)
+public class ContextoAplicacao {
+
+    static final String[] DESTINOS = {"Paris", "Tokyo", "Roma", "Lisboa", "Nova York", "Buenos Aires",
+            "Cancún", "Santiago", "Londres", "Fortaleza", "Salvador", "Gramado"};
+    static final String[] CATEGORIAS = {"ECONOMICA", "EXECUTIVA", "LUXO"};
+    // As partidas ficam no ano seguinte a este dia, já que a validação recusa datas no passado
+    static final LocalDate INICIO = LocalDate.now().plusDays(1);
+
+    @Param({"1000"})
+    public int viagens;
+
+    @Param({"5"})
+    public int avaliacoesPorViagem;
+
+    @Param({"false"})
+    public boolean cache;
+
+    ConfigurableApplicationContext contexto;
+    ViagemService viagemService;
+    ObjectMapper objectMapper;
+
+    // Ids das viagens geradas, e uma viagem com vagas suficientes para todas as reservas do benchmark
+    List<Long> ids;
+    Long viagemReservas;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        // Como argumentos de linha de comando, para prevalecer sobre o application.properties
+        contexto = new SpringApplicationBuilder(TravelAgencyApiApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--travelagency.cache.habilitado=" + cache,
+                        "--spring.jpa.properties.hibernate.generate_statistics=false");
+        viagemService = contexto.getBean(ViagemService.class);
+        objectMapper = contexto.getBean(ObjectMapper.class);
+        popular(contexto.getBean(ViagemRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        contexto.close();
+    }
+
+    private void popular(ViagemRepository viagemRepository) {
+        Random aleatorio = new Random(42);
+        LocalDate inicio = INICIO;
+
+        List<Viagem> lote = new ArrayList<>();
+        for (int i = 0; i < viagens; i++) {
+            LocalDate partida = inicio.plusDays(aleatorio.nextInt(365));
+            String destino = DESTINOS[aleatorio.nextInt(DESTINOS.length)];
+            lote.add(new Viagem(destino, partida, partida.plusDays(3 + aleatorio.nextInt(12)),
+                    BigDecimal.valueOf(500 + aleatorio.nextInt(9500)), "Pacote para " + destino,
+                    aleatorio.nextInt(50), CATEGORIAS[aleatorio.nextInt(CATEGORIAS.length)]));
+            if (lote.size() == 500) {
+                viagemRepository.saveAll(lote);
+                lote.clear();
+            }
+        }
+        viagemRepository.saveAll(lote);
+
+        // Avaliações pelo serviço, para que média, total e histograma fiquem consistentes
+        ids = viagemRepository.findAll().stream().map(Viagem::getId).toList();
+        for (Long id : ids) {
+            for (int i = 0; i < avaliacoesPorViagem; i++) {
+                viagemService.adicionarAvaliacao(id, novaAvaliacao(1 + aleatorio.nextInt(5)));
+            }
+        }
+
+        viagemReservas = viagemService.criarViagem(new Viagem("Reservas", inicio, inicio.plusDays(7),
+                new BigDecimal("1000.00"), "Viagem usada no benchmark de reservas", Integer.MAX_VALUE, "ECONOMICA")).getId();
+    }
+
+    static Avaliacao novaAvaliacao(int nota) {
+        Avaliacao avaliacao = new Avaliacao();
+        avaliacao.setNota(nota);
+        avaliacao.setComentario("Avaliação gerada para benchmark");
+        return avaliacao;
+    }
+}
@@ -0,0 +1,114 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Tempo entre iniciar um processo novo (como um pod criado durante um pico) e a primeira resposta 200 de GET /api/viagens.
+// "jar": java -jar do artefato padrão; "cds": a aplicação de target/cds, com processamento AOT e o arquivo CDS.
+// Exige os artefatos gerados antes: mvn -Pcds package -DskipTests
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InicializacaoBenchmark {
+
+    private static final Path JAR = Path.of("target/travel-agency-api-0.0.1-SNAPSHOT.jar").toAbsolutePath();
+    private static final Path DIRETORIO_CDS = Path.of("target/cds").toAbsolutePath();
+    private static final String CLASSE_PRINCIPAL = "com.agencia.travelagencyapi.TravelAgencyApiApplication";
+    private static final Duration LIMITE = Duration.ofMinutes(2);
+
+    @Param({"jar", "cds"})
+    public String artefato;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private Process processo;
+
+    @Setup(Level.Trial)
+    public void verificarArtefatos() {
+        Path necessario = artefato.equals("cds") ? DIRETORIO_CDS.resolve("application.jsa") : JAR;
+        if (!Files.exists(necessario)) {
+            throw new IllegalStateException("Artefato não encontrado: " + necessario + ". Gere com mvn -Pcds package -DskipTests");
+        }
+    }
+
+    @Benchmark
+    public int primeiraRequisicao() throws IOException, InterruptedException {
+        int porta = portaLivre();
+        processo = comando(porta)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/viagens?limite=1")).build();
+        long prazo = System.nanoTime() + LIMITE.toNanos();
+        while (System.nanoTime() < prazo) {
+            if (!processo.isAlive()) {
+                throw new IllegalStateException("A aplicação terminou durante a inicialização (código " + processo.exitValue() + ")");
+            }
+            try {
+                int status = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (status == 200) {
+                    return status;
+                }
+            } catch (IOException e) {
+                // Ainda não aceita conexões
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("A aplicação não respondeu em " + LIMITE.toSeconds() + " s");
+    }
+
+    @TearDown(Level.Invocation)
+    public void encerrar() throws InterruptedException {
+        if (processo != null) {
+            processo.destroy();
+            processo.waitFor();
+        }
+    }
+
+    private ProcessBuilder comando(int porta) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        String argumentoPorta = "--server.port=" + porta;
+        if (artefato.equals("cds")) {
+            return new ProcessBuilder(List.of(java,
+                    "-XX:SharedArchiveFile=application.jsa",
+                    "-Dspring.aot.enabled=true",
+                    "-cp", "application.jar" + File.pathSeparator + "BOOT-INF/lib/*",
+                    CLASSE_PRINCIPAL, argumentoPorta))
+                    .directory(DIRETORIO_CDS.toFile());
+        }
+        return new ProcessBuilder(List.of(java, "-jar", JAR.toString(), argumentoPorta));
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import com.agencia.travelagencyapi.TravelAgencyApiApplication;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.agencia.travelagencyapi.service.ViagemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Carga HTTP pela rede local sobre a listagem, o detalhe e a reserva, com as requisições do Tomcat em
+// threads de plataforma (padrão) ou em virtual threads (perfil Spring "virtual", que também fixa o pool do Hikari).
+// Throughput dá as requisições por segundo; SampleTime dá a distribuição da latência (p0.50, p0.99).
+// Mais clientes que o pool do Tomcat (200) mostram a diferença entre os modelos: -t 400, por exemplo.
+// "virtual" exige Java 21: mvn -Pjmh,java21 compile exec:exec -Djmh.args="ModeloThreadsBenchmark"
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(64)
+public class ModeloThreadsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Servidor {
+
+        @Param({"plataforma", "virtual"})
+        public String threads;
+
+        @Param({"1000"})
+        public int viagens;
+
+        ConfigurableApplicationContext contexto;
+        HttpClient http;
+        String base;
+        List<Long> ids;
+        Long viagemReservas;
+        String autorizacao;
+
+        @Setup(Level.Trial)
+        public void iniciar() {
+            SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(TravelAgencyApiApplication.class);
+            if (threads.equals("virtual")) {
+                if (Runtime.version().feature() < 21) {
+                    throw new IllegalStateException("Virtual threads exigem Java 21; execute com o perfil Maven java21 em um JDK 21");
+                }
+                aplicacao.profiles("virtual");
+            }
+            contexto = aplicacao.run("--server.port=0",
+                    "--spring.main.banner-mode=off",
+                    "--logging.level.root=WARN",
+                    "--spring.jpa.properties.hibernate.generate_statistics=false");
+            popular();
+
+            // Um cliente com o próprio executor de threads de plataforma nos dois casos: só o servidor muda
+            http = HttpClient.newHttpClient();
+            base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/viagens";
+            autorizacao = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            contexto.close();
+        }
+
+        private void popular() {
+            Random aleatorio = new Random(42);
+            List<Viagem> lote = new ArrayList<>();
+            for (int i = 0; i < viagens; i++) {
+                LocalDate partida = ContextoAplicacao.INICIO.plusDays(aleatorio.nextInt(365));
+                String destino = ContextoAplicacao.DESTINOS[aleatorio.nextInt(ContextoAplicacao.DESTINOS.length)];
+                lote.add(new Viagem(destino, partida, partida.plusDays(3 + aleatorio.nextInt(12)),
+                        BigDecimal.valueOf(500 + aleatorio.nextInt(9500)), "Pacote para " + destino,
+                        aleatorio.nextInt(50), ContextoAplicacao.CATEGORIAS[aleatorio.nextInt(ContextoAplicacao.CATEGORIAS.length)]));
+            }
+            ViagemRepository viagemRepository = contexto.getBean(ViagemRepository.class);
+            ids = viagemRepository.saveAll(lote).stream().map(Viagem::getId).toList();
+
+            LocalDate partida = ContextoAplicacao.INICIO;
+            viagemReservas = contexto.getBean(ViagemService.class).criarViagem(new Viagem("Reservas", partida, partida.plusDays(7),
+                    new BigDecimal("1000.00"), "Viagem usada no benchmark de threads", Integer.MAX_VALUE, "ECONOMICA")).getId();
+        }
+    }
+
+    @Benchmark
+    public int listar(Servidor servidor) throws IOException, InterruptedException {
+        return enviar(servidor, HttpRequest.newBuilder(URI.create(servidor.base + "?limite=20")).GET());
+    }
+
+    @Benchmark
+    public int detalhar(Servidor servidor) throws IOException, InterruptedException {
+        Long id = servidor.ids.get(ThreadLocalRandom.current().nextInt(servidor.ids.size()));
+        return enviar(servidor, HttpRequest.newBuilder(URI.create(servidor.base + "/" + id)).GET());
+    }
+
+    // Todas as threads disputam as vagas da mesma viagem
+    @Benchmark
+    public int reservar(Servidor servidor) throws IOException, InterruptedException {
+        return enviar(servidor, HttpRequest.newBuilder(URI.create(servidor.base + "/" + servidor.viagemReservas + "/reservar"))
+                .header("Authorization", servidor.autorizacao)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"quantidade\":1}")));
+    }
+
+    private static int enviar(Servidor servidor, HttpRequest.Builder requisicao) throws IOException, InterruptedException {
+        int status = servidor.http.send(requisicao.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("Resposta inesperada: " + status);
+        }
+        return status;
+    }
+}
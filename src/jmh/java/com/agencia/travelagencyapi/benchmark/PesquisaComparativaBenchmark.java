@@ -0,0 +1,147 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import com.agencia.travelagencyapi.TravelAgencyApiApplication;
+import com.agencia.travelagencyapi.dto.FiltroViagem;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.agencia.travelagencyapi.service.ViagemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Pesquisa com filtros sobre uma massa grande (100 mil viagens por padrão), nos dois caminhos:
+// "anterior": só o primeiro filtro informado vira consulta (métodos derivados do Spring Data), que devolve
+// todas as entidades encontradas; os demais filtros são aplicados em memória, como o cliente precisava fazer.
+// "atual": pesquisarViagens, com todos os filtros no mesmo WHERE e uma página de 20 resumos.
+// Os caches ficam desligados para medir as consultas
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PesquisaComparativaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Massa {
+
+        @Param({"100000"})
+        public int viagens;
+
+        ConfigurableApplicationContext contexto;
+        ViagemService viagemService;
+        ViagemRepository viagemRepository;
+
+        @Setup(Level.Trial)
+        public void iniciar() {
+            contexto = new SpringApplicationBuilder(TravelAgencyApiApplication.class)
+                    .run("--server.port=0",
+                            "--spring.main.banner-mode=off",
+                            "--logging.level.root=WARN",
+                            "--travelagency.cache.habilitado=false",
+                            "--travelagency.dados-iniciais.viagens=false",
+                            "--spring.jpa.properties.hibernate.generate_statistics=false");
+            viagemService = contexto.getBean(ViagemService.class);
+            viagemRepository = contexto.getBean(ViagemRepository.class);
+
+            // Sem avaliações: o filtro por nota não entra na comparação, e a carga fica em segundos
+            Random aleatorio = new Random(42);
+            List<Viagem> lote = new ArrayList<>();
+            for (int i = 0; i < viagens; i++) {
+                LocalDate partida = ContextoAplicacao.INICIO.plusDays(aleatorio.nextInt(365));
+                String destino = ContextoAplicacao.DESTINOS[aleatorio.nextInt(ContextoAplicacao.DESTINOS.length)];
+                lote.add(new Viagem(destino, partida, partida.plusDays(3 + aleatorio.nextInt(12)),
+                        BigDecimal.valueOf(500 + aleatorio.nextInt(9500)), "Pacote para " + destino,
+                        aleatorio.nextInt(50), ContextoAplicacao.CATEGORIAS[aleatorio.nextInt(ContextoAplicacao.CATEGORIAS.length)]));
+                if (lote.size() == 1000) {
+                    viagemRepository.saveAll(lote);
+                    lote.clear();
+                }
+            }
+            viagemRepository.saveAll(lote);
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            contexto.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pesquisa {
+
+        @Param({"destino", "categoria", "preco", "combinado"})
+        public String filtro;
+
+        FiltroViagem criterios;
+
+        @Setup
+        public void preparar() {
+            criterios = new FiltroViagem();
+            switch (filtro) {
+                case "destino" -> criterios.setDestino("par");
+                case "categoria" -> criterios.setCategoria("executiva");
+                case "preco" -> {
+                    criterios.setPrecoMin(new BigDecimal("2000"));
+                    criterios.setPrecoMax(new BigDecimal("4000"));
+                }
+                case "combinado" -> {
+                    criterios.setDestino("roma");
+                    criterios.setCategoria("luxo");
+                    criterios.setPrecoMin(new BigDecimal("1000"));
+                    criterios.setPrecoMax(new BigDecimal("6000"));
+                    criterios.setVagasMin(10);
+                }
+                default -> throw new IllegalArgumentException(filtro);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object anterior(Massa massa, Pesquisa pesquisa) {
+        FiltroViagem f = pesquisa.criterios;
+        ViagemRepository repositorio = massa.viagemRepository;
+
+        List<Viagem> encontradas;
+        if (f.getDestino() != null) {
+            encontradas = repositorio.findByDestinoContainingIgnoreCaseAndAtiva(f.getDestino(), true);
+        } else if (f.getCategoria() != null) {
+            encontradas = repositorio.findByCategoriaIgnoreCaseAndAtiva(f.getCategoria(), true);
+        } else if (f.getPrecoMin() != null && f.getPrecoMax() != null) {
+            encontradas = repositorio.findByPrecoBetweenAndAtiva(f.getPrecoMin(), f.getPrecoMax(), true);
+        } else {
+            encontradas = repositorio.findByAtiva(true);
+        }
+
+        return encontradas.stream()
+                .filter(v -> f.getCategoria() == null || v.getCategoria().equals(f.getCategoria().toUpperCase(Locale.ROOT)))
+                .filter(v -> f.getPrecoMin() == null || v.getPreco().compareTo(f.getPrecoMin()) >= 0)
+                .filter(v -> f.getPrecoMax() == null || v.getPreco().compareTo(f.getPrecoMax()) <= 0)
+                .filter(v -> f.getVagasMin() == null || v.getVagasDisponiveis() >= f.getVagasMin())
+                .toList();
+    }
+
+    @Benchmark
+    public Object atual(Massa massa, Pesquisa pesquisa) {
+        return massa.viagemService.pesquisarViagens(pesquisa.criterios, null, 20);
+    }
+}
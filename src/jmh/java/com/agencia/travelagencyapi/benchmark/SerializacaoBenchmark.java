@@ -0,0 +1,71 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import com.agencia.travelagencyapi.dto.FiltroViagem;
+import com.agencia.travelagencyapi.dto.ViagemResumo;
+import com.agencia.travelagencyapi.model.Avaliacao;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serialização Jackson das respostas de listagem. As avaliações não fazem parte do JSON de Viagem
+// (são paginadas em /{id}/avaliacoes); o caso "com avaliações" serializa cada viagem junto da sua primeira página.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Listas {
+
+        @Param({"100"})
+        public int tamanho;
+
+        List<Viagem> viagens;
+        List<ViagemResumo> resumos;
+        List<ViagemComAvaliacoes> viagensComAvaliacoes;
+
+        @Setup(Level.Trial)
+        public void carregar(ContextoAplicacao contexto) {
+            viagens = contexto.viagemService.listarTodasViagens().stream().limit(tamanho).toList();
+            resumos = contexto.viagemService.pesquisarViagens(new FiltroViagem(), null, tamanho).itens();
+            viagensComAvaliacoes = viagens.stream()
+                    .map(viagem -> new ViagemComAvaliacoes(viagem, contexto.viagemService
+                            .listarAvaliacoesPorViagemId(viagem.getId(), "recentes", null, 20).itens()))
+                    .toList();
+        }
+    }
+
+    public record ViagemComAvaliacoes(Viagem viagem, List<Avaliacao> avaliacoes) {
+    }
+
+    @Benchmark
+    public byte[] viagens(ContextoAplicacao contexto, Listas listas) throws JsonProcessingException {
+        return contexto.objectMapper.writeValueAsBytes(listas.viagens);
+    }
+
+    @Benchmark
+    public byte[] resumos(ContextoAplicacao contexto, Listas listas) throws JsonProcessingException {
+        return contexto.objectMapper.writeValueAsBytes(listas.resumos);
+    }
+
+    @Benchmark
+    public byte[] viagensComAvaliacoes(ContextoAplicacao contexto, Listas listas) throws JsonProcessingException {
+        return contexto.objectMapper.writeValueAsBytes(listas.viagensComAvaliacoes);
+    }
+}
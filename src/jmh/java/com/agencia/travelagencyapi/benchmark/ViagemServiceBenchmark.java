@@ -0,0 +1,86 @@
+package com.agencia.travelagencyapi.benchmark;
+
+import com.agencia.travelagencyapi.dto.FiltroViagem;
+import com.agencia.travelagencyapi.dto.PaginaCursor;
+import com.agencia.travelagencyapi.dto.ViagemResumo;
+import com.agencia.travelagencyapi.model.Avaliacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViagemServiceBenchmark {
+
+    // Um caso por filtro de pesquisarViagens, além da busca sem filtro e da combinação de vários
+    @State(Scope.Benchmark)
+    public static class Pesquisa {
+
+        @Param({"sem-filtro", "destino", "categoria", "preco", "periodo", "vagas", "nota", "combinado"})
+        public String filtro;
+
+        FiltroViagem criterios;
+
+        @Setup
+        public void preparar() {
+            criterios = new FiltroViagem();
+            switch (filtro) {
+                case "destino" -> criterios.setDestino("par");
+                case "categoria" -> criterios.setCategoria("executiva");
+                case "preco" -> {
+                    criterios.setPrecoMin(new BigDecimal("2000"));
+                    criterios.setPrecoMax(new BigDecimal("4000"));
+                }
+                case "periodo" -> {
+                    criterios.setPartidaDe(ContextoAplicacao.INICIO.plusDays(60));
+                    criterios.setPartidaAte(ContextoAplicacao.INICIO.plusDays(150));
+                }
+                case "vagas" -> criterios.setVagasMin(30);
+                case "nota" -> criterios.setNotaMin(3.5);
+                case "combinado" -> {
+                    criterios.setCategoria("luxo");
+                    criterios.setPrecoMax(new BigDecimal("6000"));
+                    criterios.setNotaMin(3.0);
+                    criterios.setOrdenarPor("preco");
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public PaginaCursor<ViagemResumo> pesquisarViagens(ContextoAplicacao contexto, Pesquisa pesquisa) {
+        return contexto.viagemService.pesquisarViagens(pesquisa.criterios, null, 20);
+    }
+
+    // Todas as threads disputam as vagas da mesma viagem
+    @Benchmark
+    @Threads(8)
+    public boolean reservarVagaConcorrente(ContextoAplicacao contexto) {
+        return contexto.viagemService.reservarVaga(contexto.viagemReservas, 1);
+    }
+
+    @Benchmark
+    public Avaliacao adicionarAvaliacao(ContextoAplicacao contexto) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Long viagemId = contexto.ids.get(aleatorio.nextInt(contexto.ids.size()));
+        return contexto.viagemService.adicionarAvaliacao(viagemId, ContextoAplicacao.novaAvaliacao(1 + aleatorio.nextInt(5)));
+    }
+}
@@ -4,6 +4,7 @@ import com.agencia.travelagencyapi.model.Usuario;
 import com.agencia.travelagencyapi.model.Viagem;
 import com.agencia.travelagencyapi.repository.UsuarioRepository;
 import com.agencia.travelagencyapi.repository.ViagemRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -12,6 +13,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 @SpringBootApplication
 public class TravelAgencyApiApplication {
@@ -21,22 +23,36 @@ public class TravelAgencyApiApplication {
     }
 
     // Bean para inserir dados iniciais ao iniciar a aplicação
+    // Cada parte pode ser desligada (travelagency.dados-iniciais.*), e a senha do admin já vem criptografada
+    // na configuração, sem BCrypt na inicialização. Com os dados já gravados (banco persistente) são só duas
+    // consultas, existsById e count; no primeiro start somam-se a gravação do admin e o saveAll das viagens
     @Bean
-    public CommandLineRunner initialData(UsuarioRepository usuarioRepository, ViagemRepository viagemRepository, PasswordEncoder passwordEncoder) {
+    public CommandLineRunner initialData(UsuarioRepository usuarioRepository, ViagemRepository viagemRepository, PasswordEncoder passwordEncoder,
+                                         @Value("${travelagency.dados-iniciais.usuario-admin:true}") boolean criarAdmin,
+                                         @Value("${travelagency.dados-iniciais.hash-senha-admin:}") String hashSenhaAdmin,
+                                         @Value("${travelagency.dados-iniciais.viagens:true}") boolean criarViagens) {
         return args -> {
-            // Criar usuário administrador
-            Usuario admin = new Usuario();
-            admin.setUsername("admin");
-            // Criptografa a senha antes de salvar
-            admin.setPassword(passwordEncoder.encode("admin"));
-            admin.setRole("ADMIN");
-            usuarioRepository.save(admin);
+            // Com banco persistente os dados iniciais já podem existir de uma execução anterior
+            if (criarAdmin && !usuarioRepository.existsById("admin")) {
+                // Criar usuário administrador
+                Usuario admin = new Usuario();
+                admin.setUsername("admin");
+                // Sem hash configurado, criptografa a senha antes de salvar
+                admin.setPassword(hashSenhaAdmin.isEmpty() ? passwordEncoder.encode("admin") : hashSenhaAdmin);
+                admin.setRole("ADMIN");
+                usuarioRepository.save(admin);
+            }
 
-            // Criar viagens iniciais
-            viagemRepository.save(new Viagem("Paris", LocalDate.of(2025, 8, 15), LocalDate.of(2025, 8, 25),
-                    new BigDecimal("2500.00"), "Viagem romântica para Paris", 20, "ECONOMICA"));
-            viagemRepository.save(new Viagem("Tokyo", LocalDate.of(2025, 9, 10), LocalDate.of(2025, 9, 20),
-                    new BigDecimal("4500.00"), "Aventura cultural no Japão", 15, "EXECUTIVA"));
+            if (!criarViagens || viagemRepository.count() > 0) {
+                return;
+            }
+
+            // Criar viagens iniciais, em lote
+            viagemRepository.saveAll(List.of(
+                    new Viagem("Paris", LocalDate.of(2025, 8, 15), LocalDate.of(2025, 8, 25),
+                            new BigDecimal("2500.00"), "Viagem romântica para Paris", 20, "ECONOMICA"),
+                    new Viagem("Tokyo", LocalDate.of(2025, 9, 10), LocalDate.of(2025, 9, 20),
+                            new BigDecimal("4500.00"), "Aventura cultural no Japão", 15, "EXECUTIVA")));
         };
     }
-}
\ No newline at end of file
+}
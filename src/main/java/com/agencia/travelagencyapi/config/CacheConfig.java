@@ -0,0 +1,70 @@
+package com.agencia.travelagencyapi.config;
+
+import com.agencia.travelagencyapi.service.EscritasRecentes;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+// Cache local (Caffeine) para leituras de viagens. As entradas são removidas pelo
+// InvalidacaoCacheViagens a cada alteração confirmada; o TTL é apenas um limite de segurança.
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String VIAGENS = "viagens";
+    public static final String PESQUISAS = "pesquisas";
+    public static final String USUARIOS = "usuarios";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${travelagency.cache.ttl:60s}") Duration ttl,
+                                     @Value("${travelagency.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                                     @Value("${travelagency.cache.janela-vagas:0s}") Duration janelaVagas,
+                                     @Value("${travelagency.seguranca.cache-usuarios-ttl:5m}") Duration ttlUsuarios,
+                                     @Value("${travelagency.cache.habilitado:true}") boolean habilitado,
+                                     ObjectProvider<EscritasRecentes> escritasRecentes) {
+        if (!habilitado) {
+            // Toda leitura vai ao banco (útil para medir as consultas, como nos benchmarks JMH)
+            return new NoOpCacheManager();
+        }
+
+        // Com janela de vagas, as reservas não invalidam o cache; as entradas expiram, no máximo, ao fim da janela
+        Duration expiracao = janelaVagas.isZero() || janelaVagas.compareTo(ttl) > 0 ? ttl : janelaVagas;
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String nome, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                // Perfil "replica": read-your-writes também nos caches de viagens e pesquisas
+                EscritasRecentes escritas = escritasRecentes.getIfAvailable();
+                return escritas != null && !nome.equals(USUARIOS)
+                        ? new LeituraPropriaCache(nome, cache, isAllowNullValues(), escritas)
+                        : super.adaptCaffeineCache(nome, cache);
+            }
+        };
+        cacheManager.registerCustomCache(VIAGENS, Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(PESQUISAS, Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(expiracao)
+                .recordStats()
+                .build());
+        // Usuários carregados na autenticação HTTP Basic (UserCache do Spring Security)
+        cacheManager.registerCustomCache(USUARIOS, Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(ttlUsuarios)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,86 @@
+package com.agencia.travelagencyapi.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+// Evita repetir o BCrypt para credenciais já verificadas recentemente.
+// O cache guarda apenas um HMAC-SHA256 (com chave aleatória, gerada a cada inicialização) de
+// hash armazenado + senha informada: a senha em texto nunca é mantida, e uma troca de senha
+// muda o hash armazenado, o que por si só invalida as entradas antigas.
+// Somente acertos entram no cache: tentativas com senha errada continuam pagando o BCrypt inteiro.
+public class CredenciaisVerificadasPasswordEncoder implements PasswordEncoder {
+
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private final PasswordEncoder delegado;
+    private final Cache<String, Boolean> verificadas;
+    private final SecretKeySpec chave;
+    private final ThreadLocal<Mac> mac;
+
+    public CredenciaisVerificadasPasswordEncoder(PasswordEncoder delegado, Duration validade, long tamanhoMaximo) {
+        this.delegado = delegado;
+        this.verificadas = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(validade)
+                .build();
+
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        this.chave = new SecretKeySpec(bytes, ALGORITMO);
+        this.mac = ThreadLocal.withInitial(this::novoMac);
+    }
+
+    @Override
+    public String encode(CharSequence senha) {
+        return delegado.encode(senha);
+    }
+
+    @Override
+    public boolean matches(CharSequence senha, String hashArmazenado) {
+        if (senha == null || hashArmazenado == null) {
+            return delegado.matches(senha, hashArmazenado);
+        }
+
+        String impressao = impressao(hashArmazenado, senha);
+        if (verificadas.getIfPresent(impressao) != null) {
+            return true;
+        }
+
+        boolean confere = delegado.matches(senha, hashArmazenado);
+        if (confere) {
+            verificadas.put(impressao, Boolean.TRUE);
+        }
+        return confere;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String hashArmazenado) {
+        return delegado.upgradeEncoding(hashArmazenado);
+    }
+
+    private String impressao(String hashArmazenado, CharSequence senha) {
+        Mac hmac = mac.get();
+        hmac.update(hashArmazenado.getBytes(StandardCharsets.UTF_8));
+        hmac.update((byte) 0);
+        return Base64.getEncoder().encodeToString(hmac.doFinal(senha.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac novoMac() {
+        try {
+            Mac hmac = Mac.getInstance(ALGORITMO);
+            hmac.init(chave);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponível", e);
+        }
+    }
+}
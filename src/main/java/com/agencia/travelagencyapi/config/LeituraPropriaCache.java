@@ -0,0 +1,45 @@
+package com.agencia.travelagencyapi.config;
+
+import com.agencia.travelagencyapi.service.EscritasRecentes;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+
+// Perfil "replica": quem escreveu há pouco não lê do cache. Depois da invalidação, uma leitura anônima
+// atendida pela réplica atrasada pode repor a entrada antiga; o autor da alteração passa ao largo dela
+// e lê do primário (RoteamentoLeituras). A leitura dele continua gravando no cache, já atualizada.
+// Continua sendo um CaffeineCache para manter as métricas cache.* do Actuator
+class LeituraPropriaCache extends CaffeineCache {
+
+    private final EscritasRecentes escritasRecentes;
+
+    LeituraPropriaCache(String nome, Cache<Object, Object> cache, boolean permitirNulos, EscritasRecentes escritasRecentes) {
+        super(nome, cache, permitirNulos);
+        this.escritasRecentes = escritasRecentes;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return escritasRecentes.escreveuRecentemente() ? null : super.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return escritasRecentes.escreveuRecentemente() ? null : super.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (escritasRecentes.escreveuRecentemente()) {
+            try {
+                T valor = valueLoader.call();
+                put(key, valor);
+                return valor;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+        return super.get(key, valueLoader);
+    }
+}
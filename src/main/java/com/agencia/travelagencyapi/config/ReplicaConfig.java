@@ -0,0 +1,85 @@
+package com.agencia.travelagencyapi.config;
+
+import com.agencia.travelagencyapi.config.RoteamentoLeituras.Destino;
+import com.agencia.travelagencyapi.service.EscritasRecentes;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+// Perfil "replica": uma pool para o primário (spring.datasource.*) e outra para a réplica
+// (travelagency.replica.datasource.*), atrás de um DataSource que escolhe a pool a cada transação
+@Configuration
+@Profile("replica")
+public class ReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primario(DataSourceProperties propriedades) {
+        return propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("travelagency.replica.datasource.hikari")
+    public HikariDataSource replica(@Value("${travelagency.replica.datasource.url}") String url,
+                                    @Value("${travelagency.replica.datasource.username:sa}") String usuario,
+                                    @Value("${travelagency.replica.datasource.password:}") String senha) {
+        return DataSourceBuilder.create().type(HikariDataSource.class).url(url).username(usuario).password(senha).build();
+    }
+
+    // DataSource usado pelo JPA, Flyway e demais componentes
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primario") DataSource primario,
+                                 @Qualifier("replica") DataSource replica,
+                                 EscritasRecentes escritasRecentes) {
+        RoteamentoLeituras roteamento = new RoteamentoLeituras(escritasRecentes);
+        roteamento.setTargetDataSources(Map.of(Destino.PRIMARIO, primario, Destino.REPLICA, replica));
+        roteamento.setDefaultTargetDataSource(primario);
+        roteamento.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    // Apenas para testes locais com dois H2: as tabelas da réplica são vinculadas (somente leitura) às do primário,
+    // depois de o esquema do primário ser criado. Uma escrita enviada por engano à réplica falha
+    @Bean
+    @ConditionalOnProperty(name = "travelagency.replica.espelhar-primario", havingValue = "true")
+    public SmartInitializingSingleton espelharPrimarioNaReplica(@Qualifier("primario") HikariDataSource primario,
+                                                                @Qualifier("replica") DataSource replica) {
+        return () -> {
+            try (Connection origem = primario.getConnection();
+                 Connection destino = replica.getConnection();
+                 Statement comando = destino.createStatement();
+                 ResultSet tabelas = origem.getMetaData().getTables(null, "PUBLIC", null, new String[]{"TABLE"})) {
+                while (tabelas.next()) {
+                    String tabela = tabelas.getString("TABLE_NAME");
+                    comando.execute("create linked table if not exists " + tabela + "('org.h2.Driver', "
+                            + literal(primario.getJdbcUrl()) + ", " + literal(primario.getUsername()) + ", "
+                            + literal(primario.getPassword()) + ", " + literal(tabela) + ") readonly");
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Não foi possível vincular a réplica local ao primário", e);
+            }
+        };
+    }
+
+    private static String literal(String valor) {
+        return "'" + (valor != null ? valor.replace("'", "''") : "") + "'";
+    }
+}
@@ -0,0 +1,28 @@
+package com.agencia.travelagencyapi.config;
+
+import com.agencia.travelagencyapi.service.EscritasRecentes;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Transações somente leitura vão para a réplica; escritas, operações fora de transação e leituras
+// de quem escreveu há pouco ficam no primário.
+// Precisa estar atrás de um LazyConnectionDataSourceProxy: o JpaTransactionManager pede a conexão antes de
+// marcar a transação como somente leitura, e o proxy adia a escolha até o primeiro comando SQL
+class RoteamentoLeituras extends AbstractRoutingDataSource {
+
+    enum Destino { PRIMARIO, REPLICA }
+
+    private final EscritasRecentes escritasRecentes;
+
+    RoteamentoLeituras(EscritasRecentes escritasRecentes) {
+        this.escritasRecentes = escritasRecentes;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !escritasRecentes.escreveuRecentemente()) {
+            return Destino.REPLICA;
+        }
+        return Destino.PRIMARIO;
+    }
+}
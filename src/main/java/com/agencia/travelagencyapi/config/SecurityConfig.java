@@ -1,14 +1,25 @@
 package com.agencia.travelagencyapi.config;
 
+import com.agencia.travelagencyapi.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.cache.SpringCacheBasedUserCache;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.time.Duration;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -17,25 +28,54 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, TokenService tokenService) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            // Sem sessão HTTP: cada requisição traz o token (ou usuário e senha), sem depender de sticky sessions
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authorize -> authorize
                 // Permite acesso público a endpoints de leitura (GET)
                 .requestMatchers(HttpMethod.GET, "/api/viagens/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll() // Permite acesso ao console H2
+                .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                // Sondas de liveness/readiness do balanceador, que não consultam o banco
+                .requestMatchers(HttpMethod.GET, "/livez", "/readyz", "/actuator/health/liveness", "/actuator/health/readiness").permitAll()
                 // Exige autenticação para qualquer outro request
                 .anyRequest().authenticated()
             )
             .headers(headers -> headers
                 .frameOptions(HeadersConfigurer.FrameOptionsConfig::sameOrigin)
             )
+            // Token assinado (Bearer) verificado antes do HTTP Basic, que continua disponível
+            .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
             .httpBasic(withDefaults());
         return http.build();
     }
 
+    // Autenticação com cache dos usuários carregados do banco
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                            PasswordEncoder passwordEncoder,
+                                                            UserCache userCache) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(userCache);
+        // O principal passa a ser o nome do usuário, para que o UserDetails em cache
+        // não tenha a senha apagada ao fim de cada autenticação
+        provider.setForcePrincipalAsString(true);
+        return provider;
+    }
+
+    @Bean
+    public UserCache userCache(CacheManager cacheManager) {
+        return new SpringCacheBasedUserCache(cacheManager.getCache(CacheConfig.USUARIOS));
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${travelagency.seguranca.cache-credenciais-ttl:5m}") Duration validade,
+            @Value("${travelagency.seguranca.cache-credenciais-tamanho:10000}") long tamanhoMaximo) {
+        return new CredenciaisVerificadasPasswordEncoder(new BCryptPasswordEncoder(), validade, tamanhoMaximo);
     }
 }
\ No newline at end of file
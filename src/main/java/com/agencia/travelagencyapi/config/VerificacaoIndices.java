@@ -0,0 +1,76 @@
+package com.agencia.travelagencyapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Confere, na inicialização, se os índices usados pelas consultas de viagens e avaliações existem.
+// Com travelagency.banco.exigir-indices=true (perfil persistente) a ausência impede a aplicação de subir.
+@Component
+public class VerificacaoIndices implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificacaoIndices.class);
+
+    private static final Map<String, List<String>> INDICES_ESPERADOS = Map.of(
+            "viagem", List.of("idx_viagem_ativa_categoria", "idx_viagem_ativa_preco", "idx_viagem_ativa_data_partida"),
+            "avaliacao", List.of("idx_avaliacao_viagem_id", "idx_avaliacao_viagem_nota"));
+
+    private final DataSource dataSource;
+    private final boolean exigir;
+
+    public VerificacaoIndices(DataSource dataSource,
+                              @Value("${travelagency.banco.exigir-indices:false}") boolean exigir) {
+        this.dataSource = dataSource;
+        this.exigir = exigir;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        Set<String> ausentes = new HashSet<>();
+        try (Connection conexao = dataSource.getConnection()) {
+            DatabaseMetaData metadados = conexao.getMetaData();
+            for (Map.Entry<String, List<String>> tabela : INDICES_ESPERADOS.entrySet()) {
+                Set<String> existentes = indicesDa(metadados, tabela.getKey());
+                tabela.getValue().stream()
+                        .filter(indice -> !existentes.contains(indice))
+                        .forEach(ausentes::add);
+            }
+        }
+
+        if (ausentes.isEmpty()) {
+            log.info("Índices do banco verificados");
+        } else if (exigir) {
+            throw new IllegalStateException("Índices ausentes no banco: " + ausentes);
+        } else {
+            log.warn("Índices ausentes no banco: {}", ausentes);
+        }
+    }
+
+    private Set<String> indicesDa(DatabaseMetaData metadados, String tabela) throws SQLException {
+        String nome = metadados.storesUpperCaseIdentifiers() ? tabela.toUpperCase(Locale.ROOT) : tabela;
+        Set<String> indices = new HashSet<>();
+        try (ResultSet resultado = metadados.getIndexInfo(null, null, nome, false, true)) {
+            while (resultado.next()) {
+                String indice = resultado.getString("INDEX_NAME");
+                if (indice != null) {
+                    indices.add(indice.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,32 @@
+package com.agencia.travelagencyapi.controller;
+
+import com.agencia.travelagencyapi.dto.CredenciaisLogin;
+import com.agencia.travelagencyapi.dto.TokenAcesso;
+import com.agencia.travelagencyapi.service.TokenService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/auth")
+@CrossOrigin(origins = "*")
+public class AuthController {
+
+    @Autowired
+    private AuthenticationProvider authenticationProvider;
+
+    @Autowired
+    private TokenService tokenService;
+
+    // Verifica usuário e senha uma vez e devolve um token para as próximas requisições
+    @PostMapping("/login")
+    public ResponseEntity<TokenAcesso> login(@Valid @RequestBody CredenciaisLogin credenciais) {
+        Authentication autenticacao = authenticationProvider.authenticate(
+                UsernamePasswordAuthenticationToken.unauthenticated(credenciais.username(), credenciais.password()));
+        return ResponseEntity.ok(tokenService.emitir(autenticacao));
+    }
+}
@@ -1,53 +1,165 @@
 package com.agencia.travelagencyapi.controller;
 
+import com.agencia.travelagencyapi.dto.AjusteEmLote;
+import com.agencia.travelagencyapi.dto.Facetas;
+import com.agencia.travelagencyapi.dto.FiltroViagem;
+import com.agencia.travelagencyapi.dto.ItemReserva;
+import com.agencia.travelagencyapi.dto.PaginaCursor;
+import com.agencia.travelagencyapi.dto.ProtocoloAvaliacao;
+import com.agencia.travelagencyapi.dto.RelatorioImportacao;
+import com.agencia.travelagencyapi.dto.ViagemResumo;
 import com.agencia.travelagencyapi.model.Avaliacao;
 import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.service.AssinaturasVagas;
+import com.agencia.travelagencyapi.service.ContadoresViagem;
+import com.agencia.travelagencyapi.service.ImportacaoViagemService;
+import com.agencia.travelagencyapi.service.IngestaoAvaliacoes;
+import com.agencia.travelagencyapi.service.VersaoCatalogo;
 import com.agencia.travelagencyapi.service.ViagemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/viagens")
 @CrossOrigin(origins = "*")
 public class ViagemController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    private static final Pattern ETAG_VIAGEM = Pattern.compile("\"v(\\d{1,18})\"");
+
     @Autowired
     private ViagemService viagemService;
 
-    // GET - Listar todas as viagens (AGORA REFATORADO)
+    @Autowired
+    private ImportacaoViagemService importacaoViagemService;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    @Autowired
+    private ContadoresViagem contadoresViagem;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AssinaturasVagas assinaturasVagas;
+
+    // Presente apenas com travelagency.avaliacoes.modo=assincrono
+    @Autowired(required = false)
+    private IngestaoAvaliacoes ingestaoAvaliacoes;
+
+    // GET - Listar viagens, combinando todos os filtros informados
+    // Parâmetros: destino, categoria, precoMin, precoMax, partidaDe, partidaAte, vagasMin, apenasAtivas, ordenarPor, direcao
+    // Paginação: "limite" (máximo 100) e "cursor" (valor de "proximoCursor" da página anterior)
+    // Responde 304 quando o If-None-Match do cliente corresponde à versão atual do catálogo
     @GetMapping
-    public ResponseEntity<List<Viagem>> listarViagens(
-            @RequestParam(required = false) String destino,
-            @RequestParam(required = false) String categoria,
-            @RequestParam(required = false) BigDecimal precoMin,
-            @RequestParam(required = false) BigDecimal precoMax,
-            @RequestParam(required = false, defaultValue = "true") Boolean apenasAtivas) {
-        
-        // A lógica de decisão foi movida para o ViagemService.
+    public ResponseEntity<PaginaCursor<ViagemResumo>> listarViagens(FiltroViagem filtro,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer limite,
+                                                                    WebRequest webRequest) {
+        String etag = versaoCatalogo.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        // A lógica de decisão fica no ViagemService.
         // O controller apenas repassa os parâmetros.
-        List<Viagem> viagens = viagemService.pesquisarViagens(destino, categoria, precoMin, precoMax, apenasAtivas);
-        
-        return ResponseEntity.ok(viagens);
+        PaginaCursor<ViagemResumo> pagina = viagemService.pesquisarViagens(filtro, cursor, limite);
+
+        return ResponseEntity.ok().eTag(etag).body(pagina);
+    }
+
+    // GET - Contagens por categoria, faixa de preço e mês de partida para os mesmos filtros da listagem
+    @GetMapping("/facetas")
+    public ResponseEntity<Facetas> contarFacetas(FiltroViagem filtro, WebRequest webRequest) {
+        String etag = versaoCatalogo.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(viagemService.contarFacetas(filtro));
+    }
+
+    // GET - Exportar viagens em NDJSON (uma viagem por linha), escritas à medida que são lidas do banco
+    @GetMapping(value = "/exportar", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportarViagens(FiltroViagem filtro) {
+        StreamingResponseBody corpo = saida -> viagemService.exportarViagens(filtro, viagem -> {
+            try {
+                saida.write(objectMapper.writeValueAsBytes(viagem));
+                saida.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(corpo);
+    }
+
+    // GET - Busca textual por destino e descrição, tolerante a acentos e erros de digitação ("Toquio" encontra "Tokyo")
+    @GetMapping("/busca")
+    public ResponseEntity<List<Viagem>> buscarPorTexto(@RequestParam String q,
+                                                       @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(viagemService.buscarPorTexto(q, limite));
+    }
+
+    // GET - Sugestões de destino para autocompletar
+    @GetMapping("/sugestoes")
+    public ResponseEntity<List<String>> sugerirDestinos(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(viagemService.sugerirDestinos(q, limite));
+    }
+
+    // GET - Acompanhar vagas e status de viagens por Server-Sent Events, em vez de consultar o detalhe em laço
+    // Parâmetro: ids (ex.: ?ids=1,2,3). Eventos "vagas" com {id, vagasDisponiveis, ativa, versao} e "removida"
+    @GetMapping("/eventos")
+    public ResponseEntity<SseEmitter> acompanharVagas(@RequestParam List<Long> ids) {
+        return assinaturasVagas.assinar(ids)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
     }
 
     // GET - Buscar viagem por ID
+    // O ETag vem da versão da própria viagem em cache: com cache, nem o 304 nem o corpo vão ao banco
     @GetMapping("/{id}")
-    public ResponseEntity<Viagem> buscarViagemPorId(@PathVariable Long id) {
+    public ResponseEntity<Viagem> buscarViagemPorId(@PathVariable Long id, WebRequest webRequest) {
         Optional<Viagem> viagem = viagemService.buscarPorId(id);
-        
-        if (viagem.isPresent()) {
-            return ResponseEntity.ok(viagem.get());
-        } else {
+        if (viagem.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+
+        String etag = etagDaViagem(viagem.get().getVersao());
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(viagem.get());
     }
 
     // POST - Criar nova viagem
@@ -61,6 +173,13 @@ public class ViagemController {
         }
     }
 
+    // POST - Importar viagens em massa (NDJSON: uma viagem por linha), com o resultado de cada linha
+    @PostMapping(value = "/importar", consumes = NDJSON)
+    public ResponseEntity<RelatorioImportacao> importarViagens(InputStream corpo) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8));
+        return ResponseEntity.ok(importacaoViagemService.importar(leitor));
+    }
+
     // PUT - Atualizar viagem completa
     @PutMapping("/{id}")
     public ResponseEntity<?> atualizarViagem(@PathVariable Long id, 
@@ -79,22 +198,41 @@ public class ViagemController {
     }
 
     // PATCH - Atualizar viagem parcialmente
-    @PatchMapping("/{id}")
+    // Aceita JSON Merge Patch (application/merge-patch+json): só os campos enviados são alterados.
+    // Com "If-Match" (o ETag do detalhe), o patch só é aplicado se a viagem ainda estiver nessa versão; senão, 409.
+    // Com "Prefer: return=minimal" responde 204 sem corpo, evitando recarregar a viagem
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MERGE_PATCH})
     public ResponseEntity<?> atualizarViagemParcial(@PathVariable Long id, 
-                                                   @RequestBody Map<String, Object> campos) {
+                                                   @RequestBody Map<String, Object> campos,
+                                                   @RequestHeader(value = "Prefer", required = false) String prefer,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long versaoEsperada = versaoDoIfMatch(ifMatch);
         try {
-            Optional<Viagem> viagemAtualizada = viagemService.atualizarViagemParcial(id, campos);
+            if (prefer != null && prefer.contains("return=minimal")) {
+                if (!viagemService.aplicarMergePatch(id, campos, versaoEsperada)) {
+                    return ResponseEntity.notFound().build();
+                }
+                return ResponseEntity.noContent().header("Preference-Applied", "return=minimal").build();
+            }
+
+            Optional<Viagem> viagemAtualizada = viagemService.atualizarViagemParcial(id, campos, versaoEsperada);
             
             if (viagemAtualizada.isPresent()) {
-                return ResponseEntity.ok(viagemAtualizada.get());
+                return ResponseEntity.ok().eTag(etagDaViagem(viagemAtualizada.get().getVersao())).body(viagemAtualizada.get());
             } else {
                 return ResponseEntity.notFound().build();
             }
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
 
+    // PATCH - Ajuste de preço e/ou vagas em todas as viagens do filtro, em um único UPDATE
+    @PatchMapping
+    public ResponseEntity<Map<String, Integer>> ajustarEmLote(@RequestBody AjusteEmLote ajuste) {
+        return ResponseEntity.ok(Map.of("atualizadas", viagemService.ajustarEmLote(ajuste)));
+    }
+
     // DELETE - Deletar viagem
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletarViagem(@PathVariable Long id) {
@@ -141,22 +279,52 @@ public class ViagemController {
         }
     }
 
+    // POST - Reservar vagas em várias viagens de uma vez (todas ou nenhuma)
+    @PostMapping("/reservas")
+    public ResponseEntity<?> reservarEmLote(@RequestBody List<ItemReserva> itens) {
+        if (itens == null || itens.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("erro", "Informe ao menos uma reserva"));
+        }
+
+        try {
+            int viagens = viagemService.reservarEmLote(itens);
+            return ResponseEntity.ok(Map.of("mensagem",
+                    "Reservas realizadas com sucesso para " + viagens + " viagem(ns)"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
+        }
+    }
+
     // GET - Endpoint de status da API
+    // Os totais vêm de contadores mantidos em memória; para sondas de liveness/readiness use /livez e /readyz
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> status() {
+        ContadoresViagem.Contagem contagem = contadoresViagem.atual();
         Map<String, Object> status = Map.of(
                 "status", "API funcionando",
                 "versao", "1.0.0",
-                "totalViagens", viagemService.listarTodasViagens().size(),
-                "viagensAtivas", viagemService.listarViagensAtivas().size()
+                "totalViagens", contagem.total(),
+                "viagensAtivas", contagem.ativas()
         );
         return ResponseEntity.ok(status);
     }
 
     // POST - Criar uma nova avaliação para uma viagem
+    // No modo assíncrono responde 202 com o protocolo da avaliação enfileirada, ou 503 com a fila cheia
     @PostMapping("/{id}/avaliacoes")
     public ResponseEntity<?> criarAvaliacao(@PathVariable Long id, @Valid @RequestBody Avaliacao avaliacao) {
         try {
+            if (ingestaoAvaliacoes != null) {
+                return ingestaoAvaliacoes.enfileirar(id, avaliacao)
+                        .<ResponseEntity<?>>map(protocolo -> ResponseEntity
+                                .accepted()
+                                .location(URI.create("/api/viagens/avaliacoes/" + protocolo.protocolo()))
+                                .body(protocolo))
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .body(Map.of("erro", "Fila de avaliações cheia. Tente novamente em instantes.")));
+            }
             Avaliacao novaAvaliacao = viagemService.adicionarAvaliacao(id, avaliacao);
             return ResponseEntity.status(HttpStatus.CREATED).body(novaAvaliacao);
         } catch (IllegalArgumentException e) {
@@ -164,14 +332,54 @@ public class ViagemController {
         }
     }
 
-    // GET - Listar todas as avaliações de uma viagem
+    // GET - Situação de uma avaliação enviada no modo assíncrono (pendente, gravada ou rejeitada)
+    @GetMapping("/avaliacoes/{protocolo}")
+    public ResponseEntity<ProtocoloAvaliacao> consultarProtocoloAvaliacao(@PathVariable String protocolo) {
+        if (ingestaoAvaliacoes == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.of(ingestaoAvaliacoes.consultar(protocolo));
+    }
+
+    // GET - Listar as avaliações de uma viagem, paginadas por cursor
+    // Parâmetros: ordenarPor ("recentes" ou "nota"), limite (máximo 100) e cursor
     @GetMapping("/{id}/avaliacoes")
-    public ResponseEntity<?> listarAvaliacoes(@PathVariable Long id) {
+    public ResponseEntity<?> listarAvaliacoes(@PathVariable Long id,
+                                              @RequestParam(required = false, defaultValue = "recentes") String ordenarPor,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limite,
+                                              WebRequest webRequest) {
+        // Cada nova avaliação incrementa a versão da viagem, que serve também de ETag da listagem.
+        // Lida da viagem em cache (uma avaliação sempre a invalida), sem consulta a mais ao banco
+        Optional<Long> versao = viagemService.buscarPorId(id).map(Viagem::getVersao);
+        if (versao.isPresent() && webRequest.checkNotModified(etagDaViagem(versao.get()))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etagDaViagem(versao.get())).build();
+        }
+
         try {
-            List<Avaliacao> avaliacoes = viagemService.listarAvaliacoesPorViagemId(id);
-            return ResponseEntity.ok(avaliacoes);
+            PaginaCursor<Avaliacao> avaliacoes = viagemService.listarAvaliacoesPorViagemId(id, ordenarPor, cursor, limite);
+            ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+            versao.ifPresent(v -> resposta.eTag(etagDaViagem(v)));
+            return resposta.body(avaliacoes);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("erro", e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private String etagDaViagem(Long versao) {
+        return "\"v" + versao + "\"";
+    }
+
+    // Versão exigida por "If-Match"; null sem o cabeçalho ou com "*". Comparação forte: um ETag fraco,
+    // ou que não seja de uma viagem, nunca corresponde à versão atual
+    private Long versaoDoIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Matcher etag = ETAG_VIAGEM.matcher(ifMatch.trim());
+        if (!etag.matches()) {
+            throw new OptimisticLockingFailureException("If-Match não corresponde a uma versão da viagem: " + ifMatch);
+        }
+        return Long.valueOf(etag.group(1));
+    }
+}
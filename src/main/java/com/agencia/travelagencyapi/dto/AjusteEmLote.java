@@ -0,0 +1,13 @@
+package com.agencia.travelagencyapi.dto;
+
+import java.math.BigDecimal;
+
+// Corpo do PATCH em lote: as viagens que atendem ao filtro (por padrão, todas as ativas) recebem o mesmo ajuste.
+// Preço: novo valor ("preco") ou variação percentual ("percentualPreco", ex.: 10 ou -5).
+// Vagas: novo valor ("vagas") ou acréscimo/desconto ("deltaVagas"), nunca abaixo de zero.
+public record AjusteEmLote(FiltroViagem filtro,
+                           BigDecimal preco,
+                           BigDecimal percentualPreco,
+                           Integer vagas,
+                           Integer deltaVagas) {
+}
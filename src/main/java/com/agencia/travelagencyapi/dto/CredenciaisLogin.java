@@ -0,0 +1,7 @@
+package com.agencia.travelagencyapi.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+// Corpo do login: usuário e senha verificados uma única vez para emitir o token
+public record CredenciaisLogin(@NotBlank String username, @NotBlank String password) {
+}
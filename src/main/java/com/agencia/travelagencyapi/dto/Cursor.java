@@ -0,0 +1,23 @@
+package com.agencia.travelagencyapi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Posição de continuação da paginação por keyset: campo de ordenação, último valor e último id retornados
+public record Cursor(String campo, String valor, Long id) {
+
+    public String codificar() {
+        String bruto = campo + "|" + id + "|" + (valor != null ? valor : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decodificar(String token) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = bruto.split("\\|", 3);
+            return new Cursor(partes[0], partes[2], Long.valueOf(partes[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
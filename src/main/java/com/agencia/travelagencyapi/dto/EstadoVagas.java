@@ -0,0 +1,5 @@
+package com.agencia.travelagencyapi.dto;
+
+// Vagas e status de uma viagem, enviados aos assinantes de GET /api/viagens/eventos
+public record EstadoVagas(Long id, Integer vagasDisponiveis, Boolean ativa, Long versao) {
+}
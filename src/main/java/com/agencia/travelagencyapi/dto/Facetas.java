@@ -0,0 +1,16 @@
+package com.agencia.travelagencyapi.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+// Contagens do filtro atual por categoria, faixa de preço e mês de partida ("2027-01")
+public record Facetas(long total,
+                      Map<String, Long> categorias,
+                      List<FaixaPreco> faixasPreco,
+                      Map<String, Long> mesesPartida) {
+
+    // Faixa [de, ate); "ate" é null na última faixa
+    public record FaixaPreco(BigDecimal de, BigDecimal ate, long quantidade) {
+    }
+}
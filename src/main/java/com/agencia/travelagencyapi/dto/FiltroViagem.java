@@ -0,0 +1,152 @@
+package com.agencia.travelagencyapi.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Parâmetros de busca de viagens. Todos os filtros informados são combinados (AND) em uma única consulta.
+// equals/hashCode fazem parte da chave do cache de pesquisas.
+public class FiltroViagem {
+
+    private String destino;
+
+    private String categoria;
+
+    private BigDecimal precoMin;
+
+    private BigDecimal precoMax;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate partidaDe;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate partidaAte;
+
+    private Integer vagasMin;
+
+    private Double notaMin;
+
+    private Boolean apenasAtivas = true;
+
+    private String ordenarPor = "id";
+
+    private String direcao = "asc";
+
+    // Getters e Setters
+    public String getDestino() {
+        return destino;
+    }
+
+    public void setDestino(String destino) {
+        this.destino = destino;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public BigDecimal getPrecoMin() {
+        return precoMin;
+    }
+
+    public void setPrecoMin(BigDecimal precoMin) {
+        this.precoMin = precoMin;
+    }
+
+    public BigDecimal getPrecoMax() {
+        return precoMax;
+    }
+
+    public void setPrecoMax(BigDecimal precoMax) {
+        this.precoMax = precoMax;
+    }
+
+    public LocalDate getPartidaDe() {
+        return partidaDe;
+    }
+
+    public void setPartidaDe(LocalDate partidaDe) {
+        this.partidaDe = partidaDe;
+    }
+
+    public LocalDate getPartidaAte() {
+        return partidaAte;
+    }
+
+    public void setPartidaAte(LocalDate partidaAte) {
+        this.partidaAte = partidaAte;
+    }
+
+    public Integer getVagasMin() {
+        return vagasMin;
+    }
+
+    public void setVagasMin(Integer vagasMin) {
+        this.vagasMin = vagasMin;
+    }
+
+    public Double getNotaMin() {
+        return notaMin;
+    }
+
+    public void setNotaMin(Double notaMin) {
+        this.notaMin = notaMin;
+    }
+
+    public Boolean getApenasAtivas() {
+        return apenasAtivas;
+    }
+
+    public void setApenasAtivas(Boolean apenasAtivas) {
+        this.apenasAtivas = apenasAtivas;
+    }
+
+    public String getOrdenarPor() {
+        return ordenarPor;
+    }
+
+    public void setOrdenarPor(String ordenarPor) {
+        this.ordenarPor = ordenarPor;
+    }
+
+    public String getDirecao() {
+        return direcao;
+    }
+
+    public void setDirecao(String direcao) {
+        this.direcao = direcao;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FiltroViagem outro)) {
+            return false;
+        }
+        return Objects.equals(destino, outro.destino)
+                && Objects.equals(categoria, outro.categoria)
+                && Objects.equals(precoMin, outro.precoMin)
+                && Objects.equals(precoMax, outro.precoMax)
+                && Objects.equals(partidaDe, outro.partidaDe)
+                && Objects.equals(partidaAte, outro.partidaAte)
+                && Objects.equals(vagasMin, outro.vagasMin)
+                && Objects.equals(notaMin, outro.notaMin)
+                && Objects.equals(apenasAtivas, outro.apenasAtivas)
+                && Objects.equals(ordenarPor, outro.ordenarPor)
+                && Objects.equals(direcao, outro.direcao);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(destino, categoria, precoMin, precoMax, partidaDe, partidaAte,
+                vagasMin, notaMin, apenasAtivas, ordenarPor, direcao);
+    }
+}
@@ -0,0 +1,5 @@
+package com.agencia.travelagencyapi.dto;
+
+// Item de uma reserva em lote
+public record ItemReserva(Long viagemId, Integer quantidade) {
+}
@@ -0,0 +1,5 @@
+package com.agencia.travelagencyapi.dto;
+
+// Uma linha da consulta agregada de facetas: quantidade de viagens por categoria, mês de partida e faixa de preço
+public record LinhaFacetas(String categoria, Integer ano, Integer mes, Integer faixaPreco, Long quantidade) {
+}
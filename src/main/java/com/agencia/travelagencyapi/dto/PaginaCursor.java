@@ -0,0 +1,17 @@
+package com.agencia.travelagencyapi.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Página de resultados com o cursor para buscar a próxima (null quando não há mais itens)
+public record PaginaCursor<T>(List<T> itens, String proximoCursor) {
+
+    // Recebe até "tamanho + 1" itens: o item excedente só indica que existe uma próxima página
+    public static <T> PaginaCursor<T> de(List<T> resultado, int tamanho, Function<T, Cursor> cursorDe) {
+        if (resultado.size() <= tamanho) {
+            return new PaginaCursor<>(resultado, null);
+        }
+        List<T> itens = List.copyOf(resultado.subList(0, tamanho));
+        return new PaginaCursor<>(itens, cursorDe.apply(itens.get(tamanho - 1)).codificar());
+    }
+}
@@ -0,0 +1,22 @@
+package com.agencia.travelagencyapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Situação de uma avaliação recebida no modo assíncrono: pendente na fila, gravada (com o id) ou rejeitada (com o motivo)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProtocoloAvaliacao(String protocolo, Status status, Long avaliacaoId, String erro) {
+
+    public enum Status { PENDENTE, GRAVADA, REJEITADA }
+
+    public static ProtocoloAvaliacao pendente(String protocolo) {
+        return new ProtocoloAvaliacao(protocolo, Status.PENDENTE, null, null);
+    }
+
+    public static ProtocoloAvaliacao gravada(String protocolo, Long avaliacaoId) {
+        return new ProtocoloAvaliacao(protocolo, Status.GRAVADA, avaliacaoId, null);
+    }
+
+    public static ProtocoloAvaliacao rejeitada(String protocolo, String erro) {
+        return new ProtocoloAvaliacao(protocolo, Status.REJEITADA, null, erro);
+    }
+}
@@ -0,0 +1,7 @@
+package com.agencia.travelagencyapi.dto;
+
+import java.util.List;
+
+// Resumo da importação em massa, com o resultado de cada linha na ordem do arquivo
+public record RelatorioImportacao(int criadas, int comErro, List<ResultadoImportacao> resultados) {
+}
@@ -0,0 +1,16 @@
+package com.agencia.travelagencyapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Resultado de uma linha da importação em massa: o id criado ou o motivo da rejeição
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ResultadoImportacao(int linha, Long id, String erro) {
+
+    public static ResultadoImportacao criada(int linha, Long id) {
+        return new ResultadoImportacao(linha, id, null);
+    }
+
+    public static ResultadoImportacao comErro(int linha, String erro) {
+        return new ResultadoImportacao(linha, null, erro);
+    }
+}
@@ -0,0 +1,5 @@
+package com.agencia.travelagencyapi.dto;
+
+// Token emitido no login; expiraEm em segundos desde a época (UTC)
+public record TokenAcesso(String token, String tipo, long expiraEm) {
+}
@@ -0,0 +1,18 @@
+package com.agencia.travelagencyapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Projeção usada nas listagens: só as colunas da viagem, sem a coleção de avaliações
+public record ViagemResumo(Long id,
+                           String destino,
+                           LocalDate dataPartida,
+                           LocalDate dataRetorno,
+                           BigDecimal preco,
+                           String descricao,
+                           Integer vagasDisponiveis,
+                           String categoria,
+                           Boolean ativa,
+                           Integer totalAvaliacoes,
+                           Double mediaAvaliacoes) {
+}
@@ -0,0 +1,22 @@
+package com.agencia.travelagencyapi.event;
+
+// Publicado pelo ViagemService a cada alteração de viagem. Os ouvintes usam
+// @TransactionalEventListener para reagir somente depois do commit.
+// Em alterações em lote (LOTE) viagemId é null: várias viagens podem ter mudado ou sido criadas (importação).
+// remota = true quando a alteração foi feita por outro nó e chegou pelo registro de alterações (perfil "cluster")
+public record ViagemAlteradaEvent(Long viagemId, TipoAlteracao tipo, boolean remota) {
+
+    public ViagemAlteradaEvent(Long viagemId, TipoAlteracao tipo) {
+        this(viagemId, tipo, false);
+    }
+
+    public enum TipoAlteracao {
+        CRIADA,
+        ATUALIZADA,
+        DESATIVADA,
+        REMOVIDA,
+        RESERVA,
+        AVALIACAO,
+        LOTE
+    }
+}
@@ -8,10 +8,18 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+@Table(indexes = {
+        // Atende a listagem por recência (viagem_id = ? order by id desc) sem ordenar em memória
+        @Index(name = "idx_avaliacao_viagem_id", columnList = "viagem_id, id"),
+        // Atende a listagem por nota (viagem_id = ? order by nota desc, id desc)
+        @Index(name = "idx_avaliacao_viagem_nota", columnList = "viagem_id, nota, id")
+})
 public class Avaliacao {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Ids por sequência (reservados de 50 em 50) permitem agrupar os INSERTs em lotes JDBC
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "avaliacao_seq")
+    @SequenceGenerator(name = "avaliacao_seq", sequenceName = "avaliacao_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "A nota é obrigatória")
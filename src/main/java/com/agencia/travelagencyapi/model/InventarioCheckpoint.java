@@ -0,0 +1,40 @@
+package com.agencia.travelagencyapi.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+// Última sequência do journal de reservas já aplicada ao banco, por nó
+@Entity
+public class InventarioCheckpoint {
+
+    @Id
+    private String no;
+
+    private Long sequencia;
+
+    // Construtor vazio
+    public InventarioCheckpoint() {
+    }
+
+    public InventarioCheckpoint(String no, Long sequencia) {
+        this.no = no;
+        this.sequencia = sequencia;
+    }
+
+    // Getters e Setters
+    public String getNo() {
+        return no;
+    }
+
+    public void setNo(String no) {
+        this.no = no;
+    }
+
+    public Long getSequencia() {
+        return sequencia;
+    }
+
+    public void setSequencia(Long sequencia) {
+        this.sequencia = sequencia;
+    }
+}
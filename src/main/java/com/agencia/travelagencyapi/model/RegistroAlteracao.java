@@ -0,0 +1,66 @@
+package com.agencia.travelagencyapi.model;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// Uma alteração de viagem confirmada, gravada na mesma transação (perfil "cluster").
+// Os outros nós leem o registro em ordem de id para invalidar caches e contadores locais
+@Entity
+@Table(indexes = @Index(name = "idx_registro_alteracao_criado_em", columnList = "criado_em"))
+public class RegistroAlteracao {
+
+    @Id
+    // IDENTITY, sem reserva em blocos: ids consecutivos permitem ao leitor perceber
+    // uma transação ainda não confirmada (lacuna) e voltar a ela depois
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // null em alterações em lote (LOTE)
+    @Column(name = "viagem_id")
+    private Long viagemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoAlteracao tipo;
+
+    // Nó que fez a alteração: ele mesmo já atualizou o próprio estado
+    @Column(nullable = false, length = 100)
+    private String no;
+
+    @Column(name = "criado_em", nullable = false)
+    private Instant criadoEm;
+
+    // Construtor vazio
+    public RegistroAlteracao() {
+    }
+
+    public RegistroAlteracao(Long viagemId, TipoAlteracao tipo, String no, Instant criadoEm) {
+        this.viagemId = viagemId;
+        this.tipo = tipo;
+        this.no = no;
+        this.criadoEm = criadoEm;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getViagemId() {
+        return viagemId;
+    }
+
+    public TipoAlteracao getTipo() {
+        return tipo;
+    }
+
+    public String getNo() {
+        return no;
+    }
+
+    public Instant getCriadoEm() {
+        return criadoEm;
+    }
+}
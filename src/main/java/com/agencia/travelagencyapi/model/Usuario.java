@@ -1,9 +1,12 @@
 package com.agencia.travelagencyapi.model;
 
+import com.agencia.travelagencyapi.service.InvalidacaoCacheUsuario;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 
 @Entity
+@EntityListeners(InvalidacaoCacheUsuario.class)
 public class Usuario {
     @Id
     private String username;
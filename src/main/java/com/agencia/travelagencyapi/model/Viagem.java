@@ -1,31 +1,66 @@
 package com.agencia.travelagencyapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+// UPDATEs incluem só as colunas alteradas (ex.: um ajuste de preço não reescreve a descrição)
 @Entity
+@DynamicUpdate
+@Table(indexes = {
+        // Filtros combinados com "apenas ativas" (a listagem padrão)
+        @Index(name = "idx_viagem_ativa_categoria", columnList = "ativa, categoria"),
+        @Index(name = "idx_viagem_ativa_preco", columnList = "ativa, preco"),
+        @Index(name = "idx_viagem_ativa_data_partida", columnList = "ativa, data_partida")
+})
 public class Viagem {
 
+    // Sequência com alocação em blocos: permite ao Hibernate agrupar os INSERTs em lotes JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "viagem_seq")
+    @SequenceGenerator(name = "viagem_seq", sequenceName = "viagem_seq", allocationSize = 50)
     private Long id;
 
+    // Incrementada a cada alteração (inclusive reservas e avaliações); usada como ETag
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long versao;
+
     @OneToMany(mappedBy = "viagem", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore // As avaliações são expostas pelo endpoint próprio, evitando uma consulta extra por viagem serializada
     private List<Avaliacao> avaliacoes;
 
     @NotBlank(message = "Destino é obrigatório")
     private String destino;
 
+    // Destino em minúsculas, calculado pelo banco na gravação: o filtro por destino compara com esta coluna
+    // em vez de aplicar lower() linha a linha. O filtro é por trecho ("like '%x%'"), que nenhum índice B-tree
+    // atende: a coluna não é indexada, e a busca textual indexada é a de /api/viagens/busca (IndiceBuscaViagens)
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(destino))")
+    @JsonIgnore
+    private String destinoNormalizado;
+
     @NotNull(message = "Data de partida é obrigatória")
     private LocalDate dataPartida;
 
@@ -39,16 +74,53 @@ public class Viagem {
     @NotBlank(message = "Descrição é obrigatória")
     private String descricao;
 
+    // Obrigatório: a paginação por keyset em vagasDisponiveis compara valores e não trataria nulos
+    @NotNull(message = "Número de vagas é obrigatório")
+    @Column(nullable = false)
     private Integer vagasDisponiveis;
 
     private String categoria; // ECONOMICA, EXECUTIVA, PRIMEIRA_CLASSE
 
     private Boolean ativa;
 
+    // Agregados das avaliações, mantidos a cada nova avaliação para não recalcular a média por requisição
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer totalAvaliacoes;
+
+    @JsonIgnore
+    private Long somaNotas;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Double mediaAvaliacoes;
+
+    // Histograma: quantidade de avaliações com cada nota (1 a 5)
+    @JsonIgnore
+    private Integer avaliacoesNota1;
+
+    @JsonIgnore
+    private Integer avaliacoesNota2;
+
+    @JsonIgnore
+    private Integer avaliacoesNota3;
+
+    @JsonIgnore
+    private Integer avaliacoesNota4;
+
+    @JsonIgnore
+    private Integer avaliacoesNota5;
+
     // Construtores
     public Viagem() {
         this.ativa = true;
         this.vagasDisponiveis = 0;
+        this.totalAvaliacoes = 0;
+        this.somaNotas = 0L;
+        this.mediaAvaliacoes = 0.0;
+        this.avaliacoesNota1 = 0;
+        this.avaliacoesNota2 = 0;
+        this.avaliacoesNota3 = 0;
+        this.avaliacoesNota4 = 0;
+        this.avaliacoesNota5 = 0;
     }
 
     public Viagem(String destino, LocalDate dataPartida, LocalDate dataRetorno,
@@ -60,7 +132,7 @@ public class Viagem {
         this.preco = preco;
         this.descricao = descricao;
         this.vagasDisponiveis = vagasDisponiveis;
-        this.categoria = categoria;
+        setCategoria(categoria);
     }
 
     // Getters e Setters
@@ -72,6 +144,10 @@ public class Viagem {
         this.id = id;
     }
 
+    public Long getVersao() {
+        return versao;
+    }
+
     public String getDestino() {
         return destino;
     }
@@ -125,7 +201,8 @@ public class Viagem {
     }
 
     public void setCategoria(String categoria) {
-        this.categoria = categoria;
+        // Normaliza para maiúsculas para que as buscas comparem a coluna diretamente
+        this.categoria = categoria != null ? categoria.toUpperCase(Locale.ROOT) : null;
     }
 
     public Boolean getAtiva() {
@@ -136,6 +213,30 @@ public class Viagem {
         this.ativa = ativa;
     }
 
+    public Integer getTotalAvaliacoes() {
+        return totalAvaliacoes;
+    }
+
+    public Long getSomaNotas() {
+        return somaNotas;
+    }
+
+    public Double getMediaAvaliacoes() {
+        return mediaAvaliacoes;
+    }
+
+    // Exposto no JSON como {"1": n, ..., "5": n}
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public Map<Integer, Integer> getHistogramaAvaliacoes() {
+        Map<Integer, Integer> histograma = new LinkedHashMap<>();
+        histograma.put(1, avaliacoesNota1);
+        histograma.put(2, avaliacoesNota2);
+        histograma.put(3, avaliacoesNota3);
+        histograma.put(4, avaliacoesNota4);
+        histograma.put(5, avaliacoesNota5);
+        return histograma;
+    }
+
     public List<Avaliacao> getAvaliacoes() {
         return avaliacoes;
     }
@@ -155,6 +256,8 @@ public class Viagem {
                 ", vagasDisponiveis=" + vagasDisponiveis +
                 ", categoria='" + categoria + '\'' +
                 ", ativa=" + ativa +
+                ", totalAvaliacoes=" + totalAvaliacoes +
+                ", mediaAvaliacoes=" + mediaAvaliacoes +
                 '}';
     }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.agencia.travelagencyapi.repository;
 
 import com.agencia.travelagencyapi.model.Avaliacao;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,4 +14,19 @@ public interface AvaliacaoRepository extends JpaRepository<Avaliacao, Long> {
     
     // Método para buscar todas as avaliações de uma viagem específica
     List<Avaliacao> findByViagemId(Long viagemId);
+
+    // Página de avaliações mais recentes, anteriores ao id do cursor (keyset sobre o índice viagem_id, id)
+    @Query("select a from Avaliacao a where a.viagem.id = :viagemId and a.id < :antesDe order by a.id desc")
+    List<Avaliacao> buscarRecentes(@Param("viagemId") Long viagemId,
+                                   @Param("antesDe") Long antesDe,
+                                   Pageable pagina);
+
+    // Página de avaliações da maior para a menor nota, posteriores ao par (nota, id) do cursor
+    @Query("select a from Avaliacao a where a.viagem.id = :viagemId " +
+            "and (a.nota < :nota or (a.nota = :nota and a.id < :antesDe)) " +
+            "order by a.nota desc, a.id desc")
+    List<Avaliacao> buscarPorNota(@Param("viagemId") Long viagemId,
+                                  @Param("nota") Integer nota,
+                                  @Param("antesDe") Long antesDe,
+                                  Pageable pagina);
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.agencia.travelagencyapi.repository;
+
+import com.agencia.travelagencyapi.model.InventarioCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventarioCheckpointRepository extends JpaRepository<InventarioCheckpoint, String> {}
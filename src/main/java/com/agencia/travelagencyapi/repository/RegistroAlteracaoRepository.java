@@ -0,0 +1,41 @@
+package com.agencia.travelagencyapi.repository;
+
+import com.agencia.travelagencyapi.model.RegistroAlteracao;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RegistroAlteracaoRepository extends JpaRepository<RegistroAlteracao, Long> {
+
+    // Próximas alterações depois do id já lido, em ordem (varredura pela chave primária)
+    @Query("select r from RegistroAlteracao r where r.id > :depoisDe order by r.id")
+    List<RegistroAlteracao> buscarDepoisDe(@Param("depoisDe") Long depoisDe, Pageable pagina);
+
+    // Alterações que faltavam (lacunas) e podem ter sido confirmadas desde a última leitura
+    @Query("select r from RegistroAlteracao r where r.id in :ids order by r.id")
+    List<RegistroAlteracao> buscarPorIds(@Param("ids") Collection<Long> ids);
+
+    // Ids já confirmados depois de um ponto (ao subir, para achar as transações ainda em andamento)
+    @Query("select r.id from RegistroAlteracao r where r.id > :depoisDe")
+    List<Long> buscarIdsDepoisDe(@Param("depoisDe") Long depoisDe);
+
+    @Query("select max(r.id) from RegistroAlteracao r")
+    Optional<Long> buscarUltimoId();
+
+    @Query("select max(r.id) from RegistroAlteracao r where r.criadoEm < :limite")
+    Optional<Long> buscarUltimoIdAntesDe(@Param("limite") Instant limite);
+
+    @Modifying
+    @Query("delete from RegistroAlteracao r where r.criadoEm < :limite " +
+            "and r.id < (select max(u.id) from RegistroAlteracao u)")
+    int removerAnterioresA(@Param("limite") Instant limite);
+}
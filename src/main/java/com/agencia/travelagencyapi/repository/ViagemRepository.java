@@ -1,22 +1,80 @@
 package com.agencia.travelagencyapi.repository;
 
+import com.agencia.travelagencyapi.dto.EstadoVagas;
 import com.agencia.travelagencyapi.model.Viagem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ViagemRepository extends JpaRepository<Viagem, Long> {
+public interface ViagemRepository extends JpaRepository<Viagem, Long>, JpaSpecificationExecutor<Viagem>, ViagemRepositoryCustom {
 
     // Método para buscar viagens ativas
     List<Viagem> findByAtiva(boolean ativa);
 
+    long countByAtiva(boolean ativa);
+
     // Métodos para busca com filtro e apenas ativas
     List<Viagem> findByDestinoContainingIgnoreCaseAndAtiva(String destino, boolean ativa);
     
     List<Viagem> findByCategoriaIgnoreCaseAndAtiva(String categoria, boolean ativa);
     
     List<Viagem> findByPrecoBetweenAndAtiva(BigDecimal precoMin, BigDecimal precoMax, boolean ativa);
-}
\ No newline at end of file
+
+    // Quais das viagens informadas existem, em uma consulta (ingestão assíncrona de avaliações)
+    @Query("select v.id from Viagem v where v.id in :ids")
+    List<Long> buscarIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    // Ids de todas as viagens, sem carregar as entidades (índice de busca, após alterações em lote)
+    @Query("select v.id from Viagem v")
+    List<Long> buscarTodosIds();
+
+    // Vagas e status das viagens informadas, sem carregar as entidades (eventos SSE)
+    @Query("select new com.agencia.travelagencyapi.dto.EstadoVagas(v.id, v.vagasDisponiveis, v.ativa, v.versao) " +
+            "from Viagem v where v.id in :ids")
+    List<EstadoVagas> buscarEstadoVagas(@Param("ids") Collection<Long> ids);
+
+    // Reserva as vagas somente se a viagem estiver ativa e tiver vagas suficientes.
+    // A verificação e o decremento acontecem no mesmo UPDATE, então reservas concorrentes não vendem além do disponível.
+    @Modifying
+    @Query("update Viagem v set v.vagasDisponiveis = v.vagasDisponiveis - :quantidade, v.versao = v.versao + 1 " +
+            "where v.id = :id and v.ativa = true and v.vagasDisponiveis >= :quantidade")
+    int reservarVagas(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Aplica reservas já aceitas pelo inventário em memória (a verificação de vagas foi feita lá)
+    @Modifying
+    @Query("update Viagem v set v.vagasDisponiveis = v.vagasDisponiveis - :quantidade, v.versao = v.versao + 1 " +
+            "where v.id = :id")
+    int descontarVagas(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Soma novas avaliações aos agregados da viagem em um único UPDATE, sem carregar a entidade.
+    // A média usa os valores anteriores da linha, como no SQL padrão.
+    @Modifying
+    @Query("update Viagem v set " +
+            "v.totalAvaliacoes = v.totalAvaliacoes + :quantidade, " +
+            "v.somaNotas = v.somaNotas + :soma, " +
+            "v.mediaAvaliacoes = (v.somaNotas + :soma) * 1.0 / (v.totalAvaliacoes + :quantidade), " +
+            "v.avaliacoesNota1 = v.avaliacoesNota1 + :nota1, " +
+            "v.avaliacoesNota2 = v.avaliacoesNota2 + :nota2, " +
+            "v.avaliacoesNota3 = v.avaliacoesNota3 + :nota3, " +
+            "v.avaliacoesNota4 = v.avaliacoesNota4 + :nota4, " +
+            "v.avaliacoesNota5 = v.avaliacoesNota5 + :nota5, " +
+            "v.versao = v.versao + 1 " +
+            "where v.id = :id")
+    int acumularAvaliacoes(@Param("id") Long id,
+                           @Param("quantidade") int quantidade,
+                           @Param("soma") long soma,
+                           @Param("nota1") int nota1,
+                           @Param("nota2") int nota2,
+                           @Param("nota3") int nota3,
+                           @Param("nota4") int nota4,
+                           @Param("nota5") int nota5);
+}
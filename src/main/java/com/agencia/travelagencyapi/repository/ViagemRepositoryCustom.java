@@ -0,0 +1,36 @@
+package com.agencia.travelagencyapi.repository;
+
+import com.agencia.travelagencyapi.dto.AjusteEmLote;
+import com.agencia.travelagencyapi.dto.LinhaFacetas;
+import com.agencia.travelagencyapi.dto.ViagemResumo;
+import com.agencia.travelagencyapi.model.Viagem;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Consultas que precisam de controle direto sobre a query (limite sem COUNT, streaming).
+// Retornam a projeção ViagemResumo: nenhuma entidade é carregada e as avaliações nunca são consultadas.
+public interface ViagemRepositoryCustom {
+
+    // Aplica LIMIT diretamente, sem a consulta de contagem que o Page exigiria
+    List<ViagemResumo> buscarComLimite(Specification<Viagem> spec, Sort sort, int limite);
+
+    // Deve ser consumido dentro de uma transação e fechado ao final
+    Stream<ViagemResumo> streamPorFiltro(Specification<Viagem> spec, Sort sort);
+
+    // Uma única consulta agrupada por categoria, ano/mês de partida e faixa de preço.
+    // A faixa é o índice do primeiro limite maior que o preço (limitesPreco.size() quando acima de todos)
+    List<LinhaFacetas> contarFacetas(Specification<Viagem> spec, List<BigDecimal> limitesPreco);
+
+    // UPDATE direto, sem carregar a viagem: altera apenas as colunas informadas e incrementa a versão.
+    // Com versaoEsperada, só atualiza se a viagem ainda estiver nessa versão.
+    // Retorna o número de linhas atualizadas (0 quando a viagem não existe ou mudou de versão)
+    int atualizarCampos(Long id, Map<String, Object> valores, Long versaoEsperada);
+
+    // Aplica o mesmo ajuste de preço e/ou vagas a todas as viagens do filtro, em um único UPDATE
+    int ajustarEmLote(Specification<Viagem> spec, AjusteEmLote ajuste);
+}
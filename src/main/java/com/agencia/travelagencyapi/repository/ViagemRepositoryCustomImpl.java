@@ -0,0 +1,162 @@
+package com.agencia.travelagencyapi.repository;
+
+import com.agencia.travelagencyapi.dto.AjusteEmLote;
+import com.agencia.travelagencyapi.dto.LinhaFacetas;
+import com.agencia.travelagencyapi.dto.ViagemResumo;
+import com.agencia.travelagencyapi.model.Viagem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+public class ViagemRepositoryCustomImpl implements ViagemRepositoryCustom {
+
+    // Quantidade de linhas trazidas do banco por ida ao servidor durante o streaming
+    private static final int TAMANHO_LOTE_STREAMING = 500;
+
+    // Menor preço que o ajuste em lote grava (a coluna tem duas casas decimais)
+    private static final BigDecimal PRECO_MINIMO = new BigDecimal("0.01");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ViagemResumo> buscarComLimite(Specification<Viagem> spec, Sort sort, int limite) {
+        return criarQuery(spec, sort)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<ViagemResumo> streamPorFiltro(Specification<Viagem> spec, Sort sort) {
+        return criarQuery(spec, sort)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, TAMANHO_LOTE_STREAMING)
+                .getResultStream();
+    }
+
+    @Override
+    public List<LinhaFacetas> contarFacetas(Specification<Viagem> spec, List<BigDecimal> limitesPreco) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<LinhaFacetas> query = cb.createQuery(LinhaFacetas.class);
+        Root<Viagem> root = query.from(Viagem.class);
+
+        Expression<BigDecimal> preco = root.get("preco");
+        CriteriaBuilder.Case<Integer> faixa = cb.selectCase();
+        for (int i = 0; i < limitesPreco.size(); i++) {
+            faixa = faixa.when(cb.lessThan(preco, limitesPreco.get(i)), i);
+        }
+        Expression<Integer> faixaPreco = faixa.otherwise(limitesPreco.size());
+        Expression<Integer> ano = cb.function("year", Integer.class, root.get("dataPartida"));
+        Expression<Integer> mes = cb.function("month", Integer.class, root.get("dataPartida"));
+
+        query.select(cb.construct(LinhaFacetas.class, root.get("categoria"), ano, mes, faixaPreco, cb.count(root)));
+        Predicate predicado = spec.toPredicate(root, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        query.groupBy(root.get("categoria"), ano, mes, faixaPreco);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public int atualizarCampos(Long id, Map<String, Object> valores, Long versaoEsperada) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Viagem> update = cb.createCriteriaUpdate(Viagem.class);
+        Root<Viagem> root = update.from(Viagem.class);
+
+        valores.forEach(update::set);
+        incrementarVersao(update, root, cb);
+        Predicate daViagem = cb.equal(root.get("id"), id);
+        update.where(versaoEsperada == null ? daViagem : cb.and(daViagem, cb.equal(root.get("versao"), versaoEsperada)));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int ajustarEmLote(Specification<Viagem> spec, AjusteEmLote ajuste) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Viagem> update = cb.createCriteriaUpdate(Viagem.class);
+        Root<Viagem> root = update.from(Viagem.class);
+
+        Path<BigDecimal> preco = root.get("preco");
+        if (ajuste.preco() != null) {
+            update.set(preco, ajuste.preco());
+        } else if (ajuste.percentualPreco() != null) {
+            // preco + preco * percentual / 100, arredondado a centavos; nunca abaixo de um centavo, pois
+            // um desconto próximo de 100% arredondaria preços baixos para zero
+            Expression<BigDecimal> variacao = cb.quot(cb.prod(preco, ajuste.percentualPreco()), new BigDecimal("100"))
+                    .as(BigDecimal.class);
+            Expression<BigDecimal> ajustado = cb.function("round", BigDecimal.class, cb.sum(preco, variacao), cb.literal(2));
+            update.set(preco, cb.<BigDecimal>selectCase()
+                    .when(cb.lessThan(ajustado, PRECO_MINIMO), PRECO_MINIMO)
+                    .otherwise(ajustado));
+        }
+
+        Path<Integer> vagas = root.get("vagasDisponiveis");
+        if (ajuste.vagas() != null) {
+            update.set(vagas, ajuste.vagas());
+        } else if (ajuste.deltaVagas() != null) {
+            Expression<Integer> ajustadas = cb.sum(vagas, ajuste.deltaVagas());
+            update.set(vagas, cb.<Integer>selectCase()
+                    .when(cb.lessThan(ajustadas, 0), 0)
+                    .otherwise(ajustadas));
+        }
+        incrementarVersao(update, root, cb);
+
+        // As especificações de filtro usam apenas root e cb, então servem também ao UPDATE
+        Predicate predicado = spec.toPredicate(root, null, cb);
+        if (predicado != null) {
+            update.where(predicado);
+        }
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    // Mantém a versão (ETag e @Version) coerente com as alterações feitas fora do ciclo da entidade
+    private void incrementarVersao(CriteriaUpdate<Viagem> update, Root<Viagem> root, CriteriaBuilder cb) {
+        Path<Long> versao = root.get("versao");
+        update.set(versao, cb.sum(versao, 1L));
+    }
+
+    private TypedQuery<ViagemResumo> criarQuery(Specification<Viagem> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ViagemResumo> query = cb.createQuery(ViagemResumo.class);
+        Root<Viagem> root = query.from(Viagem.class);
+        query.select(cb.construct(ViagemResumo.class,
+                root.get("id"),
+                root.get("destino"),
+                root.get("dataPartida"),
+                root.get("dataRetorno"),
+                root.get("preco"),
+                root.get("descricao"),
+                root.get("vagasDisponiveis"),
+                root.get("categoria"),
+                root.get("ativa"),
+                root.get("totalAvaliacoes"),
+                root.get("mediaAvaliacoes")));
+
+        Predicate predicado = spec.toPredicate(root, query, cb);
+        if (predicado != null) {
+            query.where(predicado);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query);
+    }
+}
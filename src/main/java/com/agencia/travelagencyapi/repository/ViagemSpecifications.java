@@ -0,0 +1,92 @@
+package com.agencia.travelagencyapi.repository;
+
+import com.agencia.travelagencyapi.dto.FiltroViagem;
+import com.agencia.travelagencyapi.model.Viagem;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Predicados reutilizáveis para as consultas de Viagem
+public final class ViagemSpecifications {
+
+    private static final char ESCAPE_LIKE = '\\';
+
+    private ViagemSpecifications() {
+    }
+
+    // Combina todos os filtros informados em um único WHERE
+    public static Specification<Viagem> comFiltro(FiltroViagem filtro) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+
+            if (Boolean.TRUE.equals(filtro.getApenasAtivas())) {
+                predicados.add(cb.isTrue(root.get("ativa")));
+            }
+            if (temTexto(filtro.getCategoria())) {
+                // A categoria é gravada sempre em maiúsculas, então a comparação pode usar o índice da coluna
+                predicados.add(cb.equal(root.get("categoria"), filtro.getCategoria().toUpperCase(Locale.ROOT)));
+            }
+            if (filtro.getPrecoMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("preco"), filtro.getPrecoMin()));
+            }
+            if (filtro.getPrecoMax() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("preco"), filtro.getPrecoMax()));
+            }
+            if (filtro.getPartidaDe() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("dataPartida"), filtro.getPartidaDe()));
+            }
+            if (filtro.getPartidaAte() != null) {
+                predicados.add(cb.lessThanOrEqualTo(root.get("dataPartida"), filtro.getPartidaAte()));
+            }
+            if (filtro.getVagasMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("vagasDisponiveis"), filtro.getVagasMin()));
+            }
+            if (filtro.getNotaMin() != null) {
+                predicados.add(cb.greaterThanOrEqualTo(root.get("mediaAvaliacoes"), filtro.getNotaMin()));
+            }
+            if (temTexto(filtro.getDestino())) {
+                // O texto é buscado literalmente: "%", "_" e "\" digitados não funcionam como curingas
+                predicados.add(cb.like(root.get("destinoNormalizado"),
+                        "%" + escaparLike(filtro.getDestino().toLowerCase(Locale.ROOT)) + "%", ESCAPE_LIKE));
+            }
+
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+
+    // Keyset: registros posteriores a (valor, id) na ordem informada, sem OFFSET
+    public static <T extends Comparable<? super T>> Specification<Viagem> aposCursor(
+            String campo, Sort.Direction direcao, T valor, Long id) {
+        return (root, query, cb) -> {
+            Path<Long> caminhoId = root.get("id");
+            Predicate idSeguinte = direcao.isAscending() ? cb.greaterThan(caminhoId, id) : cb.lessThan(caminhoId, id);
+            if (campo.equals("id")) {
+                return idSeguinte;
+            }
+
+            Path<T> caminho = root.get(campo);
+            Predicate valorSeguinte = direcao.isAscending() ? cb.greaterThan(caminho, valor) : cb.lessThan(caminho, valor);
+            return cb.or(valorSeguinte, cb.and(cb.equal(caminho, valor), idSeguinte));
+        };
+    }
+
+    private static String escaparLike(String texto) {
+        StringBuilder escapado = new StringBuilder(texto.length() + 4);
+        for (char c : texto.toCharArray()) {
+            if (c == '%' || c == '_' || c == ESCAPE_LIKE) {
+                escapado.append(ESCAPE_LIKE);
+            }
+            escapado.append(c);
+        }
+        return escapado.toString();
+    }
+
+    private static boolean temTexto(String valor) {
+        return valor != null && !valor.isEmpty();
+    }
+}
@@ -0,0 +1,371 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.dto.EstadoVagas;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Assinaturas de Server-Sent Events sobre vagas e status das viagens (GET /api/viagens/eventos).
+// Uma alteração apenas marca a viagem como pendente. A cada janela (travelagency.sse.janela) cada viagem pendente
+// é lida uma vez e o mesmo evento, serializado uma vez, é entregue a todos os assinantes: várias reservas
+// seguidas na mesma viagem viram um único evento. A thread de janela e heartbeat só enfileira: cada assinante tem
+// uma fila limitada, esvaziada por uma tarefa própria (em virtual thread no perfil "virtual"), e um cliente lento
+// não atrasa os demais. Quem não acompanha (fila cheia ou envio travado) é encerrado e reconecta com o estado atual.
+// Conexões ociosas não prendem threads (servlet assíncrono); o heartbeat mantém proxies abertos e descobre
+// clientes que já se desconectaram
+@Component
+public class AssinaturasVagas {
+
+    private static final Logger log = LoggerFactory.getLogger(AssinaturasVagas.class);
+
+    private final ViagemRepository viagemRepository;
+    private final TransactionTemplate transactionTemplate;
+    // Presente apenas com travelagency.inventario.modo=memoria: as vagas vêm do contador, à frente do banco
+    private final InventarioVagas inventarioVagas;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final int maxConexoes;
+    private final int maxViagensPorConexao;
+    private final int filaPorConexao;
+    private final long tempoMaximoEnvioNanos;
+    private final Counter descartes;
+
+    // Assinantes por viagem e o assinante de cada conexão
+    private final ConcurrentHashMap<Long, Set<Assinante>> assinantes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<SseEmitter, Assinante> conexoes = new ConcurrentHashMap<>();
+
+    // Viagens alteradas desde o último envio
+    private final Set<Long> pendentes = ConcurrentHashMap.newKeySet();
+
+    // Janela e heartbeat: só leem o banco e enfileiram, nunca escrevem em uma conexão
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "sse-agendador");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Escrita nas conexões: uma tarefa por assinante com fila não vazia
+    private final Executor envio;
+
+    public AssinaturasVagas(ViagemRepository viagemRepository,
+                            ObjectProvider<InventarioVagas> inventarioVagas,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${travelagency.sse.janela:250ms}") Duration janela,
+                            @Value("${travelagency.sse.heartbeat:15s}") Duration heartbeat,
+                            @Value("${travelagency.sse.timeout:30m}") Duration timeout,
+                            @Value("${travelagency.sse.max-conexoes:20000}") int maxConexoes,
+                            @Value("${travelagency.sse.max-viagens-por-conexao:50}") int maxViagensPorConexao,
+                            @Value("${travelagency.sse.fila-por-conexao:64}") int filaPorConexao,
+                            @Value("${travelagency.sse.tempo-maximo-envio:10s}") Duration tempoMaximoEnvio,
+                            @Value("${travelagency.sse.threads-envio:16}") int threadsEnvio,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean threadsVirtuais) {
+        this.viagemRepository = viagemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.inventarioVagas = inventarioVagas.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeout.toMillis();
+        this.maxConexoes = maxConexoes;
+        this.maxViagensPorConexao = maxViagensPorConexao;
+        this.filaPorConexao = filaPorConexao;
+        this.tempoMaximoEnvioNanos = tempoMaximoEnvio.toNanos();
+        this.envio = executorEnvio(threadsVirtuais, threadsEnvio);
+
+        Gauge.builder("viagens.sse.conexoes", conexoes, Map::size)
+                .description("Conexões SSE abertas")
+                .register(meterRegistry);
+        this.descartes = Counter.builder("viagens.sse.descartes")
+                .description("Conexões SSE encerradas por não acompanharem os eventos")
+                .register(meterRegistry);
+
+        agendador.scheduleWithFixedDelay(protegido(this::enviarPendentes), janela.toMillis(), janela.toMillis(), TimeUnit.MILLISECONDS);
+        agendador.scheduleWithFixedDelay(protegido(this::enviarHeartbeat), heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Abre a assinatura e envia o estado atual de cada viagem; vazio quando o nó já atingiu o limite de conexões
+    public Optional<SseEmitter> assinar(Collection<Long> ids) {
+        Set<Long> viagens = new LinkedHashSet<>(ids);
+        if (viagens.isEmpty() || viagens.size() > maxViagensPorConexao) {
+            throw new IllegalArgumentException("Informe de 1 a " + maxViagensPorConexao + " viagens em \"ids\"");
+        }
+        if (conexoes.size() >= maxConexoes) {
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = novoEmitter(timeoutMs);
+        // O estado inicial também passa pela fila: ela comporta uma entrada por viagem além do limite
+        Assinante assinante = new Assinante(emitter, viagens, filaPorConexao + viagens.size());
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> cancelar(assinante));
+        conexoes.put(emitter, assinante);
+        viagens.forEach(id -> assinantes.compute(id, (chave, conjunto) -> {
+            Set<Assinante> destinatarios = conjunto != null ? conjunto : ConcurrentHashMap.newKeySet();
+            destinatarios.add(assinante);
+            return destinatarios;
+        }));
+
+        // O estado inicial é lido depois do registro: uma alteração concorrente chega pelo envio seguinte
+        Map<Long, EstadoVagas> estados = carregarEstados(viagens);
+        for (Long id : viagens) {
+            if (!estados.containsKey(id)) {
+                cancelar(assinante);
+                throw new IllegalArgumentException("Viagem com ID " + id + " não encontrada.");
+            }
+        }
+        for (Long id : viagens) {
+            assinante.entregar(SseEmitter.event().name("vagas").reconnectTime(3000).data(json(estados.get(id))).build());
+        }
+        return Optional.of(emitter);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        switch (evento.tipo()) {
+            case RESERVA, ATUALIZADA, DESATIVADA, REMOVIDA -> {
+                if (assinantes.containsKey(evento.viagemId())) {
+                    pendentes.add(evento.viagemId());
+                }
+            }
+            // Ajuste em lote: não se sabe quais viagens mudaram, então reenvia todas as assinadas
+            case LOTE -> pendentes.addAll(assinantes.keySet());
+            default -> {
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agendador.shutdownNow();
+        List.copyOf(conexoes.keySet()).forEach(SseEmitter::complete);
+        if (envio instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        } else if (envio instanceof SimpleAsyncTaskExecutor executor) {
+            executor.close();
+        }
+    }
+
+    // Ponto de criação da conexão, sobrescrito nos testes para simular um cliente que não lê
+    SseEmitter novoEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void enviarPendentes() {
+        if (pendentes.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> it = pendentes.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+
+        Map<Long, EstadoVagas> estados = carregarEstados(ids);
+        for (Long id : ids) {
+            Set<Assinante> destinatarios = assinantes.get(id);
+            if (destinatarios == null) {
+                continue;
+            }
+            EstadoVagas estado = estados.get(id);
+            Set<DataWithMediaType> evento = estado != null
+                    ? SseEmitter.event().name("vagas").data(json(estado)).build()
+                    : SseEmitter.event().name("removida").data(json(Map.of("id", id))).build();
+            destinatarios.forEach(assinante -> assinante.entregar(evento));
+            if (estado == null) {
+                // Viagem excluída: não haverá novos eventos para ela
+                assinantes.remove(id);
+            }
+        }
+    }
+
+    // Também encerra quem está preso em um mesmo envio há mais de tempo-maximo-envio, mesmo sem a fila encher
+    private void enviarHeartbeat() {
+        Set<DataWithMediaType> comentario = SseEmitter.event().comment("").build();
+        long agora = System.nanoTime();
+        for (Assinante assinante : List.copyOf(conexoes.values())) {
+            long desde = assinante.enviandoDesde;
+            if (desde != 0 && agora - desde > tempoMaximoEnvioNanos) {
+                descartar(assinante);
+            } else {
+                assinante.entregar(comentario);
+            }
+        }
+    }
+
+    // Em transação de escrita para ler do primário (perfil "replica"): um evento com estado atrasado
+    // só seria corrigido na próxima alteração da viagem
+    private Map<Long, EstadoVagas> carregarEstados(Collection<Long> ids) {
+        Map<Long, EstadoVagas> estados = transactionTemplate.execute(status -> viagemRepository.buscarEstadoVagas(ids)).stream()
+                .collect(Collectors.toMap(EstadoVagas::id, Function.identity()));
+        if (inventarioVagas != null) {
+            estados.replaceAll((id, estado) -> inventarioVagas.vagasDisponiveis(id).stream()
+                    .mapToObj(vagas -> new EstadoVagas(id, vagas, estado.ativa(), estado.versao()))
+                    .findFirst()
+                    .orElse(estado));
+        }
+        return estados;
+    }
+
+    // Assinante que não acompanha os eventos: deixa de receber na hora. A conclusão roda no executor de envio,
+    // pois o emitter fica bloqueado enquanto um envio travado não retorna
+    private void descartar(Assinante assinante) {
+        if (cancelar(assinante)) {
+            descartes.increment();
+            envio.execute(assinante.emitter::complete);
+        }
+    }
+
+    // Retorna se a conexão ainda estava registrada
+    private boolean cancelar(Assinante assinante) {
+        if (!conexoes.remove(assinante.emitter, assinante)) {
+            return false;
+        }
+        assinante.fila.clear();
+        assinante.viagens.forEach(id -> assinantes.computeIfPresent(id, (chave, destinatarios) -> {
+            destinatarios.remove(assinante);
+            return destinatarios.isEmpty() ? null : destinatarios;
+        }));
+        return true;
+    }
+
+    private String json(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Uma exceção cancelaria as execuções seguintes da tarefa periódica
+    private Runnable protegido(Runnable tarefa) {
+        return () -> {
+            try {
+                tarefa.run();
+            } catch (RuntimeException e) {
+                log.error("Falha no envio de eventos SSE", e);
+            }
+        };
+    }
+
+    // Com virtual threads, cada esvaziamento roda em uma thread própria. Com threads de plataforma, um pool limitado:
+    // um envio travado prende uma das threads até o timeout de escrita do Tomcat, mas a conexão já foi descartada
+    private static Executor executorEnvio(boolean threadsVirtuais, int threadsEnvio) {
+        if (threadsVirtuais) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("sse-envio-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        AtomicInteger contador = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadsEnvio, threadsEnvio, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), tarefa -> {
+                    Thread thread = new Thread(tarefa, "sse-envio-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    // Uma conexão: fila limitada de eventos já serializados, esvaziada por no máximo uma tarefa por vez
+    private final class Assinante {
+
+        private final SseEmitter emitter;
+        private final Set<Long> viagens;
+        private final BlockingQueue<Set<DataWithMediaType>> fila;
+        private final AtomicBoolean agendado = new AtomicBoolean();
+        // Início do envio em andamento (System.nanoTime), 0 quando nenhum
+        private volatile long enviandoDesde;
+
+        private Assinante(SseEmitter emitter, Set<Long> viagens, int capacidade) {
+            this.emitter = emitter;
+            this.viagens = viagens;
+            this.fila = new ArrayBlockingQueue<>(capacidade);
+        }
+
+        private void entregar(Set<DataWithMediaType> evento) {
+            if (!fila.offer(evento)) {
+                descartar(this);
+                return;
+            }
+            agendar();
+        }
+
+        private void agendar() {
+            if (agendado.compareAndSet(false, true)) {
+                try {
+                    envio.execute(this::esvaziar);
+                } catch (RejectedExecutionException e) {
+                    // Aplicação encerrando
+                    agendado.set(false);
+                }
+            }
+        }
+
+        private void esvaziar() {
+            try {
+                Set<DataWithMediaType> evento;
+                while (conexoes.get(emitter) == this && (evento = fila.poll()) != null) {
+                    enviandoDesde = System.nanoTime();
+                    try {
+                        emitter.send(evento);
+                    } catch (IOException | IllegalStateException e) {
+                        // Cliente desconectado ou conexão já encerrada: para de enviar antes mesmo da conclusão pelo container
+                        cancelar(this);
+                        emitter.completeWithError(e);
+                    } finally {
+                        enviandoDesde = 0;
+                    }
+                }
+            } finally {
+                agendado.set(false);
+            }
+            // Evento entregue entre o último poll e a liberação acima
+            if (!fila.isEmpty() && conexoes.get(emitter) == this) {
+                agendar();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Total de viagens e de viagens ativas para o endpoint de status, sem carregar entidades.
+// Criações locais são somadas diretamente; criações em outros nós, lotes (que podem ter criado viagens) e alterações
+// que podem mudar o status "ativa" invalidam a contagem, refeita com dois count() na próxima consulta.
+@Component
+public class ContadoresViagem {
+
+    private final ViagemRepository viagemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Guardados por "this": a geração muda a cada alteração e impede publicar uma contagem feita no meio dela
+    private long geracao;
+    private Contagem contagem;
+
+    public ContadoresViagem(ViagemRepository viagemRepository, PlatformTransactionManager transactionManager) {
+        this.viagemRepository = viagemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Contagem atual() {
+        long geracaoInicial;
+        synchronized (this) {
+            if (contagem != null) {
+                return contagem;
+            }
+            geracaoInicial = geracao;
+        }
+
+        // Em transação de escrita para ler do primário (perfil "replica"): a contagem fica guardada até
+        // a próxima alteração, e uma réplica atrasada a deixaria errada até lá
+        Contagem nova = transactionTemplate.execute(status ->
+                new Contagem(viagemRepository.count(), viagemRepository.countByAtiva(true)));
+        synchronized (this) {
+            if (geracao == geracaoInicial) {
+                contagem = nova;
+            }
+        }
+        return nova;
+    }
+
+    // O Tomcat já aceita requisições antes dos dados iniciais serem gravados (sem eventos de criação):
+    // uma contagem feita nesse intervalo é descartada quando a aplicação fica pronta
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void aoFicarPronta() {
+        geracao++;
+        contagem = null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        switch (evento.tipo()) {
+            case RESERVA, AVALIACAO -> {
+                // Não mudam os totais
+            }
+            case CRIADA -> {
+                geracao++;
+                if (evento.remota()) {
+                    // Criada em outro nó (perfil "cluster"): a contagem atual pode ter sido feita depois do commit
+                    // e já incluí-la, e somar de novo contaria a viagem duas vezes
+                    contagem = null;
+                } else if (contagem != null) {
+                    // Toda viagem nasce ativa
+                    contagem = new Contagem(contagem.total() + 1, contagem.ativas() + 1);
+                }
+            }
+            default -> {
+                geracao++;
+                contagem = null;
+            }
+        }
+    }
+
+    public record Contagem(long total, long ativas) {
+    }
+}
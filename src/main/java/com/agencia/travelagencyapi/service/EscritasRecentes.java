@@ -0,0 +1,48 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Read-your-writes no perfil "replica": depois de uma alteração confirmada, as leituras do mesmo usuário
+// vão ao primário por uma janela (travelagency.replica.janela-leitura-propria) maior que o atraso de replicação.
+// Ex.: quem acabou de reservar vê as vagas já descontadas. Leituras anônimas seguem sempre para a réplica
+@Component
+@Profile("replica")
+public class EscritasRecentes {
+
+    private final Cache<String, Boolean> usuarios;
+
+    public EscritasRecentes(@Value("${travelagency.replica.janela-leitura-propria:5s}") Duration janela) {
+        this.usuarios = Caffeine.newBuilder()
+                .expireAfterWrite(janela)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        usuarioAtual().ifPresent(usuario -> usuarios.put(usuario, Boolean.TRUE));
+    }
+
+    public boolean escreveuRecentemente() {
+        return usuarioAtual().map(usuario -> usuarios.getIfPresent(usuario) != null).orElse(false);
+    }
+
+    private Optional<String> usuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao == null || !autenticacao.isAuthenticated() || autenticacao instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        return Optional.of(autenticacao.getName());
+    }
+}
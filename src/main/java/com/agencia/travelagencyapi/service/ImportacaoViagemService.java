@@ -0,0 +1,133 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.dto.RelatorioImportacao;
+import com.agencia.travelagencyapi.dto.ResultadoImportacao;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Importação em massa de viagens a partir de NDJSON (uma viagem por linha)
+@Service
+public class ImportacaoViagemService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoViagemService.class);
+
+    // Linhas válidas gravadas por transação; dentro dela os INSERTs saem em lotes JDBC (hibernate.jdbc.batch_size)
+    private static final int TAMANHO_LOTE = 500;
+
+    private final ViagemService viagemService;
+    private final ViagemRepository viagemRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public ImportacaoViagemService(ViagemService viagemService,
+                                   ViagemRepository viagemRepository,
+                                   ObjectMapper objectMapper,
+                                   Validator validator,
+                                   ApplicationEventPublisher eventPublisher,
+                                   PlatformTransactionManager transactionManager) {
+        this.viagemService = viagemService;
+        this.viagemRepository = viagemRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public RelatorioImportacao importar(BufferedReader leitor) throws IOException {
+        List<ResultadoImportacao> resultados = new ArrayList<>();
+        List<Viagem> lote = new ArrayList<>();
+        List<Integer> linhasDoLote = new ArrayList<>();
+
+        String linha;
+        int numero = 0;
+        while ((linha = leitor.readLine()) != null) {
+            numero++;
+            if (linha.isBlank()) {
+                continue;
+            }
+
+            try {
+                Viagem viagem = objectMapper.readValue(linha, Viagem.class);
+                if (viagem.getId() != null) {
+                    // Com id, o saveAll tentaria uma viagem existente e derrubaria o lote inteiro
+                    throw new IllegalArgumentException("id: não é aceito na importação, o identificador é gerado pela API");
+                }
+                validar(viagem);
+                viagem.setAtiva(true);
+                lote.add(viagem);
+                linhasDoLote.add(numero);
+            } catch (JsonProcessingException e) {
+                resultados.add(ResultadoImportacao.comErro(numero, "JSON inválido: " + e.getOriginalMessage()));
+            } catch (IllegalArgumentException e) {
+                resultados.add(ResultadoImportacao.comErro(numero, e.getMessage()));
+            }
+
+            if (lote.size() == TAMANHO_LOTE) {
+                gravar(lote, linhasDoLote, resultados);
+            }
+        }
+        gravar(lote, linhasDoLote, resultados);
+
+        resultados.sort(Comparator.comparingInt(ResultadoImportacao::linha));
+        int criadas = (int) resultados.stream().filter(resultado -> resultado.erro() == null).count();
+        return new RelatorioImportacao(criadas, resultados.size() - criadas, resultados);
+    }
+
+    private void validar(Viagem viagem) {
+        Set<ConstraintViolation<Viagem>> violacoes = validator.validate(viagem);
+        if (!violacoes.isEmpty()) {
+            throw new IllegalArgumentException(violacoes.stream()
+                    .map(violacao -> violacao.getPropertyPath() + ": " + violacao.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        viagemService.validarViagem(viagem);
+    }
+
+    private void gravar(List<Viagem> lote, List<Integer> linhas, List<ResultadoImportacao> resultados) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Um evento por lote, e não por viagem: caches, versão do catálogo, contadores, índice de busca
+            // e os outros nós (perfil "cluster") reagem uma vez a cada lote gravado
+            transactionTemplate.executeWithoutResult(status -> {
+                viagemRepository.saveAll(lote);
+                eventPublisher.publishEvent(new ViagemAlteradaEvent(null, TipoAlteracao.LOTE));
+            });
+            for (int i = 0; i < lote.size(); i++) {
+                resultados.add(ResultadoImportacao.criada(linhas.get(i), lote.get(i).getId()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar lote de importação", e);
+            linhas.forEach(numero -> resultados.add(
+                    ResultadoImportacao.comErro(numero, "Falha ao gravar o lote: " + e.getMessage())));
+        }
+
+        lote.clear();
+        linhas.clear();
+    }
+}
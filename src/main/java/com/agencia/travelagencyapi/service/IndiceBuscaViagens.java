@@ -0,0 +1,338 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido em memória sobre destino e descrição das viagens, para busca textual e autocompletar
+// sem "like '%x%'" no banco. Os termos passam por uma normalização fonética simples (sem acentos,
+// "qu" -> "k", "y" -> "i", ...), de modo que "Tóquio" e "Tokyo" viram o mesmo termo; grafias próximas
+// são encontradas por distância de edição entre termos que compartilham trigramas.
+// Carregado na inicialização e mantido pelos eventos de alteração de viagem.
+@Component
+public class IndiceBuscaViagens {
+
+    // Peso de um termo encontrado no destino; na descrição o peso é 1
+    private static final int PESO_DESTINO = 3;
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private final ViagemRepository viagemRepository;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    // Viagem indexada: destino original, termos com seus pesos e se está ativa
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    // Termo -> viagens que o contêm, com o peso; ordenado para buscas por prefixo
+    private final TreeMap<String, Map<Long, Integer>> termos = new TreeMap<>();
+    // Termo do destino (ou destino completo normalizado) -> destinos originais, com o número de viagens ativas
+    private final TreeMap<String, Map<String, Integer>> destinos = new TreeMap<>();
+    // Trigrama -> termos que o contêm; limita os candidatos da comparação aproximada
+    private final Map<String, Set<String>> trigramas = new HashMap<>();
+
+    public IndiceBuscaViagens(ViagemRepository viagemRepository) {
+        this.viagemRepository = viagemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        List<Viagem> viagens = viagemRepository.findAll();
+        trava.writeLock().lock();
+        try {
+            viagens.forEach(this::indexar);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        switch (evento.tipo()) {
+            case CRIADA, ATUALIZADA, DESATIVADA -> {
+                Viagem viagem = viagemRepository.findById(evento.viagemId()).orElse(null);
+                atualizar(evento.viagemId(), viagem);
+            }
+            case REMOVIDA -> atualizar(evento.viagemId(), null);
+            case LOTE -> conciliar();
+            default -> {
+                // Reservas e avaliações não mudam o texto indexado
+            }
+        }
+    }
+
+    // Alteração em lote sem ids (ajuste de preços, lote da importação): indexa as viagens que o índice ainda não tem
+    // e tira as que não existem mais. Textos e status só mudam por eventos com id
+    private void conciliar() {
+        Set<Long> existentes = new HashSet<>(viagemRepository.buscarTodosIds());
+        List<Long> novas;
+        trava.readLock().lock();
+        try {
+            novas = existentes.stream().filter(id -> !documentos.containsKey(id)).toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+        List<Viagem> viagens = novas.isEmpty() ? List.of() : viagemRepository.findAllById(novas);
+
+        trava.writeLock().lock();
+        try {
+            List.copyOf(documentos.keySet()).stream().filter(id -> !existentes.contains(id)).forEach(this::remover);
+            viagens.forEach(this::indexar);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // Ids das viagens que correspondem ao texto, das mais relevantes para as menos relevantes
+    public List<Long> buscar(String texto, boolean apenasAtivas, int limite) {
+        List<String> consulta = termosDe(texto);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+
+        trava.readLock().lock();
+        try {
+            Map<Long, Integer> pontuacao = new HashMap<>();
+            for (String termo : consulta) {
+                // Termo exato vale o peso inteiro; prefixo ou grafia próxima, metade
+                pontuar(pontuacao, termos.get(termo), 2);
+                for (String semelhante : semelhantes(termo)) {
+                    if (!semelhante.equals(termo)) {
+                        pontuar(pontuacao, termos.get(semelhante), 1);
+                    }
+                }
+            }
+
+            return pontuacao.entrySet().stream()
+                    .filter(e -> !apenasAtivas || documentos.get(e.getKey()).ativa())
+                    .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limite)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    // Destinos (viagens ativas) cujo nome, ou alguma palavra dele, começa pelo texto informado;
+    // sem resultados por prefixo, sugere os destinos com grafia próxima
+    public List<String> sugerir(String texto, int limite) {
+        String prefixo = String.join(" ", termosDe(texto));
+        if (prefixo.isEmpty()) {
+            return List.of();
+        }
+
+        trava.readLock().lock();
+        try {
+            Map<String, Integer> encontrados = new HashMap<>();
+            SortedMap<String, Map<String, Integer>> porPrefixo = destinos.subMap(prefixo, prefixo + Character.MAX_VALUE);
+            porPrefixo.values().forEach(d -> d.forEach((destino, viagens) -> encontrados.merge(destino, viagens, Math::max)));
+
+            if (encontrados.isEmpty() && !prefixo.contains(" ")) {
+                for (String semelhante : semelhantes(prefixo)) {
+                    Map<String, Integer> d = destinos.get(semelhante);
+                    if (d != null) {
+                        d.forEach((destino, viagens) -> encontrados.merge(destino, viagens, Math::max));
+                    }
+                }
+            }
+
+            return encontrados.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limite)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private void atualizar(Long id, Viagem viagem) {
+        trava.writeLock().lock();
+        try {
+            remover(id);
+            if (viagem != null) {
+                indexar(viagem);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void indexar(Viagem viagem) {
+        remover(viagem.getId());
+
+        Map<String, Integer> pesos = new HashMap<>();
+        termosDe(viagem.getDescricao()).forEach(termo -> pesos.merge(termo, 1, Math::max));
+        List<String> termosDestino = termosDe(viagem.getDestino());
+        termosDestino.forEach(termo -> pesos.put(termo, PESO_DESTINO));
+
+        boolean ativa = Boolean.TRUE.equals(viagem.getAtiva());
+        Set<String> chavesDestino = new LinkedHashSet<>(termosDestino);
+        if (!termosDestino.isEmpty()) {
+            chavesDestino.add(String.join(" ", termosDestino));
+        }
+        Documento documento = new Documento(viagem.getDestino(), pesos, chavesDestino, ativa);
+        documentos.put(viagem.getId(), documento);
+
+        pesos.forEach((termo, peso) -> {
+            Map<Long, Integer> viagens = termos.get(termo);
+            if (viagens == null) {
+                viagens = new HashMap<>();
+                termos.put(termo, viagens);
+                trigramasDe(termo).forEach(t -> trigramas.computeIfAbsent(t, k -> new HashSet<>()).add(termo));
+            }
+            viagens.put(viagem.getId(), peso);
+        });
+        if (ativa) {
+            chavesDestino.forEach(chave ->
+                    destinos.computeIfAbsent(chave, k -> new HashMap<>()).merge(documento.destino(), 1, Integer::sum));
+        }
+    }
+
+    private void remover(Long id) {
+        Documento documento = documentos.remove(id);
+        if (documento == null) {
+            return;
+        }
+
+        documento.termos().keySet().forEach(termo -> {
+            Map<Long, Integer> viagens = termos.get(termo);
+            viagens.remove(id);
+            if (viagens.isEmpty()) {
+                termos.remove(termo);
+                trigramasDe(termo).forEach(t -> {
+                    Set<String> comTrigrama = trigramas.get(t);
+                    comTrigrama.remove(termo);
+                    if (comTrigrama.isEmpty()) {
+                        trigramas.remove(t);
+                    }
+                });
+            }
+        });
+        if (documento.ativa()) {
+            documento.chavesDestino().forEach(chave -> {
+                Map<String, Integer> contagem = destinos.get(chave);
+                if (contagem.merge(documento.destino(), -1, Integer::sum) <= 0) {
+                    contagem.remove(documento.destino());
+                }
+                if (contagem.isEmpty()) {
+                    destinos.remove(chave);
+                }
+            });
+        }
+    }
+
+    private static void pontuar(Map<Long, Integer> pontuacao, Map<Long, Integer> viagens, int fator) {
+        if (viagens != null) {
+            viagens.forEach((id, peso) -> pontuacao.merge(id, peso * fator, Integer::sum));
+        }
+    }
+
+    // Termos que começam pelo termo informado ou estão a uma pequena distância de edição dele
+    private Set<String> semelhantes(String termo) {
+        Set<String> encontrados = new LinkedHashSet<>(termos.subMap(termo, termo + Character.MAX_VALUE).keySet());
+        if (termo.length() < 3) {
+            return encontrados;
+        }
+
+        int distanciaMaxima = termo.length() <= 5 ? 1 : 2;
+        Set<String> candidatos = new HashSet<>();
+        trigramasDe(termo).forEach(t -> candidatos.addAll(trigramas.getOrDefault(t, Set.of())));
+        for (String candidato : candidatos) {
+            if (Math.abs(candidato.length() - termo.length()) <= distanciaMaxima
+                    && distancia(termo, candidato, distanciaMaxima) <= distanciaMaxima) {
+                encontrados.add(candidato);
+            }
+        }
+        return encontrados;
+    }
+
+    // Distância de edição (Levenshtein, contando a troca de duas letras vizinhas como uma edição);
+    // interrompe assim que passa do máximo aceito
+    private static int distancia(String a, String b, int maximo) {
+        int[] antesDoAnterior = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] atual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            atual[0] = i;
+            int menor = atual[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int custo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                atual[j] = Math.min(Math.min(atual[j - 1] + 1, anterior[j] + 1), anterior[j - 1] + custo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    atual[j] = Math.min(atual[j], antesDoAnterior[j - 2] + 1);
+                }
+                menor = Math.min(menor, atual[j]);
+            }
+            if (menor > maximo) {
+                return menor;
+            }
+            int[] livre = antesDoAnterior;
+            antesDoAnterior = anterior;
+            anterior = atual;
+            atual = livre;
+        }
+        return anterior[b.length()];
+    }
+
+    private static List<String> trigramasDe(String termo) {
+        String marcado = "$" + termo + "$";
+        List<String> resultado = new ArrayList<>();
+        for (int i = 0; i + 3 <= marcado.length(); i++) {
+            resultado.add(marcado.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    static List<String> termosDe(String texto) {
+        if (texto == null) {
+            return List.of();
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(
+                texto.toLowerCase(Locale.ROOT).replace('ç', 's'), Normalizer.Form.NFD)).replaceAll("");
+        List<String> resultado = new ArrayList<>();
+        for (String palavra : SEPARADORES.split(semAcentos)) {
+            if (!palavra.isEmpty()) {
+                resultado.add(foneticaDe(palavra));
+            }
+        }
+        return resultado;
+    }
+
+    // Aproxima grafias que soam igual: "toquio"/"tokyo" -> "tokio", "cancun" -> "kankun", "phuket" -> "fuket"
+    private static String foneticaDe(String palavra) {
+        return palavra
+                .replace("qu", "k")
+                .replace("ph", "f")
+                .replace("ss", "s")
+                .replace('y', 'i')
+                .replace('w', 'v')
+                .replaceAll("c(?=[aou]|$|[^aeiouh])", "k");
+    }
+
+    private record Documento(String destino, Map<String, Integer> termos, Set<String> chavesDestino, boolean ativa) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.dto.ProtocoloAvaliacao;
+import com.agencia.travelagencyapi.model.Avaliacao;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Ingestão assíncrona de avaliações (travelagency.avaliacoes.modo=assincrono).
+// A requisição apenas valida e enfileira a avaliação, recebendo um protocolo; a gravação acontece em segundo plano,
+// em lotes. Com a fila cheia a avaliação é recusada na hora (o cliente tenta de novo), em vez de acumular sem limite.
+// As avaliações ainda na fila se perdem se o processo cair: o modo síncrono continua sendo o padrão
+@Service
+@ConditionalOnProperty(name = "travelagency.avaliacoes.modo", havingValue = "assincrono")
+public class IngestaoAvaliacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestaoAvaliacoes.class);
+
+    private final ViagemService viagemService;
+    private final ViagemRepository viagemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<AvaliacaoPendente> fila;
+    private final int tamanhoLote;
+
+    // Situação de cada protocolo, consultável por um tempo depois da gravação
+    private final Cache<String, ProtocoloAvaliacao> protocolos;
+
+    private final Timer tempoLote;
+    private final Counter recusadas;
+
+    // Impede que o encerramento grave em paralelo com uma gravação agendada
+    private final ReentrantLock gravacao = new ReentrantLock();
+
+    public IngestaoAvaliacoes(ViagemService viagemService,
+                              ViagemRepository viagemRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${travelagency.avaliacoes.capacidade-fila:10000}") int capacidadeFila,
+                              @Value("${travelagency.avaliacoes.tamanho-lote:500}") int tamanhoLote,
+                              @Value("${travelagency.avaliacoes.retencao-protocolos:10m}") Duration retencaoProtocolos) {
+        this.viagemService = viagemService;
+        this.viagemRepository = viagemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.tamanhoLote = tamanhoLote;
+        this.protocolos = Caffeine.newBuilder()
+                .expireAfterWrite(retencaoProtocolos)
+                .maximumSize(capacidadeFila * 10L)
+                .build();
+
+        Gauge.builder("avaliacoes.fila", fila, BlockingQueue::size)
+                .description("Avaliações aguardando gravação")
+                .register(meterRegistry);
+        this.tempoLote = Timer.builder("avaliacoes.lote")
+                .description("Gravação de um lote de avaliações")
+                .register(meterRegistry);
+        this.recusadas = Counter.builder("avaliacoes.recusadas")
+                .description("Avaliações recusadas com a fila cheia")
+                .register(meterRegistry);
+    }
+
+    // Enfileira a avaliação (já validada) e devolve o protocolo; vazio quando a fila está cheia.
+    // Sem acesso ao banco na requisição: a existência da viagem é conferida na gravação, uma consulta por lote,
+    // e a avaliação de uma viagem inexistente termina com o protocolo REJEITADA
+    public Optional<ProtocoloAvaliacao> enfileirar(Long viagemId, Avaliacao avaliacao) {
+        // O protocolo é registrado antes de entrar na fila para que a gravação nunca seja sobrescrita por ele
+        ProtocoloAvaliacao pendente = ProtocoloAvaliacao.pendente(UUID.randomUUID().toString());
+        protocolos.put(pendente.protocolo(), pendente);
+        if (!fila.offer(new AvaliacaoPendente(pendente.protocolo(), viagemId, avaliacao.getNota(), avaliacao.getComentario()))) {
+            protocolos.invalidate(pendente.protocolo());
+            recusadas.increment();
+            return Optional.empty();
+        }
+        return Optional.of(pendente);
+    }
+
+    public Optional<ProtocoloAvaliacao> consultar(String protocolo) {
+        return Optional.ofNullable(protocolos.getIfPresent(protocolo));
+    }
+
+    // Esvazia a fila em lotes de até tamanho-lote avaliações, cada lote em uma transação
+    @Scheduled(fixedDelayString = "${travelagency.avaliacoes.intervalo-gravacao-ms:100}")
+    public void gravarPendentes() {
+        gravacao.lock();
+        try {
+            List<AvaliacaoPendente> lote = new ArrayList<>(tamanhoLote);
+            while (fila.drainTo(lote, tamanhoLote) > 0) {
+                tempoLote.record(() -> gravar(lote));
+                lote.clear();
+            }
+        } finally {
+            gravacao.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        gravarPendentes();
+    }
+
+    private void gravar(List<AvaliacaoPendente> lote) {
+        Map<Long, List<AvaliacaoPendente>> porViagem = new LinkedHashMap<>();
+        lote.forEach(pendente -> porViagem.computeIfAbsent(pendente.viagemId(), id -> new ArrayList<>()).add(pendente));
+
+        // Em transação de escrita para ler do primário (perfil "replica"): a réplica pode ainda não ter uma viagem recém-criada
+        Set<Long> existentes = new HashSet<>(transactionTemplate.execute(
+                status -> viagemRepository.buscarIdsExistentes(porViagem.keySet())));
+        porViagem.entrySet().removeIf(grupo -> {
+            if (existentes.contains(grupo.getKey())) {
+                return false;
+            }
+            rejeitar(grupo.getValue(), "Viagem com ID " + grupo.getKey() + " não encontrada.");
+            return true;
+        });
+        if (porViagem.isEmpty()) {
+            return;
+        }
+
+        try {
+            gravarGrupos(porViagem);
+        } catch (RuntimeException e) {
+            // Uma viagem removida depois da verificação invalida o lote inteiro:
+            // regrava viagem a viagem para rejeitar apenas as avaliações afetadas
+            log.warn("Falha ao gravar lote de {} avaliações; gravando por viagem", lote.size(), e);
+            porViagem.forEach((viagemId, pendentes) -> {
+                try {
+                    gravarGrupos(Map.of(viagemId, pendentes));
+                } catch (RuntimeException falha) {
+                    boolean viagemExiste = viagemRepository.existsById(viagemId);
+                    if (viagemExiste) {
+                        log.error("Falha ao gravar avaliações da viagem {}", viagemId, falha);
+                    }
+                    String erro = viagemExiste
+                            ? "Falha ao gravar a avaliação"
+                            : "Viagem com ID " + viagemId + " não encontrada.";
+                    rejeitar(pendentes, erro);
+                }
+            });
+        }
+    }
+
+    private void rejeitar(List<AvaliacaoPendente> pendentes, String erro) {
+        pendentes.forEach(p -> protocolos.put(p.protocolo(), ProtocoloAvaliacao.rejeitada(p.protocolo(), erro)));
+    }
+
+    // Entidades novas a cada tentativa: as de uma transação desfeita ficam com ids já atribuídos
+    private void gravarGrupos(Map<Long, List<AvaliacaoPendente>> porViagem) {
+        Map<Long, List<Avaliacao>> avaliacoes = new LinkedHashMap<>();
+        porViagem.forEach((viagemId, pendentes) -> avaliacoes.put(viagemId,
+                pendentes.stream().map(AvaliacaoPendente::paraAvaliacao).toList()));
+
+        viagemService.adicionarAvaliacoesEmLote(avaliacoes);
+
+        porViagem.forEach((viagemId, pendentes) -> {
+            List<Avaliacao> gravadas = avaliacoes.get(viagemId);
+            for (int i = 0; i < pendentes.size(); i++) {
+                String protocolo = pendentes.get(i).protocolo();
+                protocolos.put(protocolo, ProtocoloAvaliacao.gravada(protocolo, gravadas.get(i).getId()));
+            }
+        });
+    }
+
+    private record AvaliacaoPendente(String protocolo, Long viagemId, Integer nota, String comentario) {
+
+        Avaliacao paraAvaliacao() {
+            Avaliacao avaliacao = new Avaliacao();
+            avaliacao.setNota(nota);
+            avaliacao.setComentario(comentario);
+            return avaliacao;
+        }
+    }
+}
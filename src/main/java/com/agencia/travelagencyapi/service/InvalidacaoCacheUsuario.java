@@ -0,0 +1,36 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.model.Usuario;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Listener JPA de Usuario: troca de senha, de perfil ou remoção tira o usuário do cache de autenticação.
+// Instanciado pelo Hibernate através do contêiner de beans do Spring.
+public class InvalidacaoCacheUsuario {
+
+    private final UserCache userCache;
+
+    public InvalidacaoCacheUsuario(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void aoAlterarUsuario(Usuario usuario) {
+        String username = usuario.getUsername();
+        userCache.removeUserFromCache(username);
+
+        // Remove de novo após o commit, caso uma autenticação concorrente tenha recarregado os dados antigos
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    userCache.removeUserFromCache(username);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.config.CacheConfig;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+// Remove do cache o que uma alteração de viagem tornou desatualizado, depois do commit
+@Component
+public class InvalidacaoCacheViagens {
+
+    private final Cache viagens;
+    private final Cache pesquisas;
+    private final boolean reservasInvalidam;
+
+    public InvalidacaoCacheViagens(CacheManager cacheManager,
+                                   @Value("${travelagency.cache.janela-vagas:0s}") Duration janelaVagas) {
+        this.viagens = cacheManager.getCache(CacheConfig.VIAGENS);
+        this.pesquisas = cacheManager.getCache(CacheConfig.PESQUISAS);
+        // Sem janela configurada, o número de vagas é sempre servido atualizado
+        this.reservasInvalidam = janelaVagas.isZero();
+    }
+
+    // Antes dos demais ouvintes, em especial do incremento da versão do catálogo (VersaoCatalogo)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        if (!invalida(evento)) {
+            return;
+        }
+
+        if (evento.viagemId() != null) {
+            viagens.evict(evento.viagemId());
+        } else {
+            viagens.clear();
+        }
+        // Qualquer alteração pode mudar o resultado de qualquer pesquisa
+        pesquisas.clear();
+    }
+
+    // Com janela de vagas, reservas ficam no cache até a expiração (e não mudam a versão do catálogo)
+    public boolean invalida(ViagemAlteradaEvent evento) {
+        return evento.tipo() != TipoAlteracao.RESERVA || reservasInvalidam;
+    }
+}
@@ -0,0 +1,425 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import com.agencia.travelagencyapi.model.InventarioCheckpoint;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.InventarioCheckpointRepository;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Modo de inventário em memória (travelagency.inventario.modo=memoria).
+// As reservas são aceitas em contadores atômicos por viagem, registradas em um journal local (em disco antes
+// da resposta, com um único force para várias reservas simultâneas) e aplicadas em lote às linhas de Viagem.
+// O journal é dividido em segmentos, trocados a cada descarga e apagados quando o checkpoint os cobre.
+// Ao reiniciar, as entradas dos segmentos ainda não aplicadas são reprocessadas.
+// Qualquer divergência possível (queda entre journal e banco, recarga concorrente) é sempre para menos vagas,
+// nunca para mais: a garantia de não vender além do disponível é a mesma do reservarVaga no banco.
+@Service
+@ConditionalOnProperty(name = "travelagency.inventario.modo", havingValue = "memoria")
+public class InventarioVagas {
+
+    private static final Logger log = LoggerFactory.getLogger(InventarioVagas.class);
+
+    private final ViagemRepository viagemRepository;
+    private final InventarioCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Path caminhoJournal;
+    private final String no;
+
+    private final ConcurrentHashMap<Long, Estoque> estoques = new ConcurrentHashMap<>();
+
+    // Impede que uma recarga a partir do banco aconteça com uma descarga ainda não confirmada
+    private final ReentrantLock descarga = new ReentrantLock();
+
+    // Protege a escrita no journal, a numeração das entradas e a troca de segmento.
+    // ReentrantLock em vez de synchronized: com virtual threads, a escrita em disco sob um monitor prenderia a thread portadora
+    private final ReentrantLock journal = new ReentrantLock();
+    private FileChannel canal;
+    private long sequencia;
+
+    // Um force por vez; quem espera por ele tem a entrada incluída no próximo
+    private final ReentrantLock sincronizacao = new ReentrantLock();
+    // Maior sequência já em disco
+    private volatile long sincronizadoAte;
+    // Maior sequência já aplicada ao banco (checkpoint); só a descarga altera
+    private long checkpointAplicado;
+
+    public InventarioVagas(ViagemRepository viagemRepository,
+                           InventarioCheckpointRepository checkpointRepository,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${travelagency.inventario.journal:data/inventario.journal}") String caminhoJournal,
+                           @Value("${travelagency.inventario.no:local}") String no) {
+        this.viagemRepository = viagemRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.caminhoJournal = Path.of(caminhoJournal).toAbsolutePath();
+        this.no = no;
+    }
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        Files.createDirectories(caminhoJournal.getParent());
+        long checkpoint = checkpointRepository.findById(no).map(InventarioCheckpoint::getSequencia).orElse(0L);
+
+        // Reaplica as reservas aceitas antes da última parada que ainda não chegaram ao banco
+        Map<Long, Integer> pendentes = new HashMap<>();
+        long ultimaSequencia = checkpoint;
+        List<Path> segmentos = segmentos();
+        for (Path segmento : segmentos) {
+            for (String linha : Files.readAllLines(segmento, StandardCharsets.UTF_8)) {
+                String[] partes = linha.split(";");
+                try {
+                    long seq = Long.parseLong(partes[0]);
+                    if (seq > checkpoint) {
+                        pendentes.merge(Long.valueOf(partes[1]), Integer.valueOf(partes[2]), Integer::sum);
+                    }
+                    ultimaSequencia = Math.max(ultimaSequencia, seq);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    // Última linha incompleta de uma escrita interrompida: a reserva não chegou a ser confirmada
+                    log.warn("Ignorando linha inválida do journal de reservas: {}", linha);
+                }
+            }
+        }
+        checkpointAplicado = checkpoint;
+        if (!pendentes.isEmpty()) {
+            log.info("Reaplicando reservas do journal para {} viagem(ns)", pendentes.size());
+            aplicar(pendentes, ultimaSequencia);
+            checkpointAplicado = ultimaSequencia;
+        }
+
+        // Tudo o que havia nos segmentos anteriores já está no banco
+        for (Path segmento : segmentos) {
+            Files.deleteIfExists(segmento);
+        }
+        sequencia = ultimaSequencia;
+        sincronizadoAte = ultimaSequencia;
+        canal = abrirSegmento(ultimaSequencia + 1);
+    }
+
+    @PreDestroy
+    public void encerrar() throws IOException {
+        descarregar();
+        canal.close();
+    }
+
+    public boolean reservar(Long viagemId, int quantidade) {
+        Estoque estoque = estoques.computeIfAbsent(viagemId, this::carregar);
+        if (estoque == null || !estoque.ativa) {
+            return false;
+        }
+
+        if (!estoque.descontar(quantidade)) {
+            return false;
+        }
+
+        try {
+            registrarNoJournal(viagemId, quantidade);
+        } catch (IOException e) {
+            estoque.devolver(quantidade);
+            throw new UncheckedIOException("Não foi possível registrar a reserva no journal", e);
+        }
+        return true;
+    }
+
+    // Devolve as vagas de uma reserva aceita que precisou ser desfeita (ex.: reserva em lote que falhou)
+    public void estornar(Long viagemId, int quantidade) {
+        Estoque estoque = estoques.get(viagemId);
+        try {
+            registrarNoJournal(viagemId, -quantidade);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível registrar o estorno no journal", e);
+        }
+        estoque.devolver(quantidade);
+    }
+
+    // Vagas disponíveis segundo o contador em memória, que pode estar à frente do banco; vazio se a viagem não foi carregada
+    public OptionalInt vagasDisponiveis(Long viagemId) {
+        Estoque estoque = estoques.get(viagemId);
+        return estoque != null ? OptionalInt.of(estoque.disponiveis()) : OptionalInt.empty();
+    }
+
+    // Aplica ao banco, em uma transação, tudo o que foi reservado desde a última descarga.
+    // As entradas até a sequência aplicada ficam nos segmentos anteriores, apagados depois do checkpoint:
+    // o journal não cresce mesmo sob reservas contínuas
+    @Scheduled(fixedDelayString = "${travelagency.inventario.intervalo-descarga-ms:200}")
+    public void descarregar() {
+        descarga.lock();
+        try {
+            long sequenciaFinal;
+            Map<Long, Integer> deltas = new HashMap<>();
+            sincronizacao.lock();
+            try {
+                FileChannel anterior;
+                journal.lock();
+                try {
+                    sequenciaFinal = sequencia;
+                    if (sequenciaFinal == checkpointAplicado) {
+                        return;
+                    }
+                    // O novo segmento é aberto antes de retirar os pendentes: se falhar, nada muda
+                    FileChannel novo = abrirSegmento(sequenciaFinal + 1);
+                    anterior = canal;
+                    canal = novo;
+                    estoques.forEach((id, estoque) -> {
+                        int delta = estoque.retirarPendente();
+                        if (delta != 0) {
+                            deltas.put(id, delta);
+                        }
+                    });
+                } finally {
+                    journal.unlock();
+                }
+
+                // Garante que as entradas aplicadas estejam em disco antes de avançar o checkpoint
+                anterior.force(false);
+                anterior.close();
+                sincronizadoAte = Math.max(sincronizadoAte, sequenciaFinal);
+            } finally {
+                sincronizacao.unlock();
+            }
+
+            try {
+                aplicar(deltas, sequenciaFinal);
+            } catch (RuntimeException e) {
+                // Os segmentos ficam até uma descarga bem-sucedida, que também os cobre
+                deltas.forEach((id, delta) -> estoques.get(id).devolverPendente(delta));
+                log.error("Falha ao gravar reservas no banco; nova tentativa na próxima descarga", e);
+                return;
+            }
+            checkpointAplicado = sequenciaFinal;
+            // O evento da reserva saiu antes de o banco mudar: caches preenchidos desde então têm as vagas antigas.
+            // Um novo evento por viagem gravada os invalida e avança a versão do catálogo (ETag) com o banco já em dia
+            deltas.keySet().forEach(id -> eventPublisher.publishEvent(new ViagemAlteradaEvent(id, TipoAlteracao.RESERVA)));
+
+            for (Path segmento : segmentos()) {
+                if (inicioDoSegmento(segmento) <= sequenciaFinal) {
+                    Files.deleteIfExists(segmento);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Falha ao sincronizar o journal de reservas", e);
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    // Vagas ou status alterados fora das reservas: recarrega o contador a partir do banco
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        switch (evento.tipo()) {
+            case ATUALIZADA, DESATIVADA, REMOVIDA -> recarregar(evento.viagemId());
+            // Ajuste em lote: não se sabe quais viagens mudaram, então recarrega todas as já carregadas
+            case LOTE -> List.copyOf(estoques.keySet()).forEach(this::recarregar);
+            default -> {
+            }
+        }
+    }
+
+    private void recarregar(Long viagemId) {
+        Estoque estoque = estoques.get(viagemId);
+        if (estoque == null) {
+            // Ainda não carregada: será lida do banco na próxima reserva
+            return;
+        }
+
+        descarga.lock();
+        try {
+            Optional<Viagem> viagem = viagemRepository.findById(viagemId);
+            estoque.ativa = viagem.map(v -> Boolean.TRUE.equals(v.getAtiva())).orElse(false);
+            viagem.ifPresent(v -> estoque.recarregar(vagasDe(v)));
+        } finally {
+            descarga.unlock();
+        }
+    }
+
+    private Estoque carregar(Long viagemId) {
+        return viagemRepository.findById(viagemId)
+                .map(viagem -> new Estoque(vagasDe(viagem), Boolean.TRUE.equals(viagem.getAtiva())))
+                .orElse(null);
+    }
+
+    private int vagasDe(Viagem viagem) {
+        return viagem.getVagasDisponiveis() != null ? viagem.getVagasDisponiveis() : 0;
+    }
+
+    // Só retorna com a entrada em disco: uma reserva confirmada sobrevive a uma queda do processo ou da máquina
+    private void registrarNoJournal(Long viagemId, int quantidade) throws IOException {
+        long entrada;
+        journal.lock();
+        try {
+            entrada = ++sequencia;
+            ByteBuffer linha = ByteBuffer.wrap((entrada + ";" + viagemId + ";" + quantidade + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            while (linha.hasRemaining()) {
+                canal.write(linha);
+            }
+        } finally {
+            journal.unlock();
+        }
+        sincronizar(entrada);
+    }
+
+    // Group commit: quem pega a vez faz um force de tudo o que já foi escrito. As reservas escritas
+    // durante esse force esperam na fila e são cobertas juntas pelo próximo, em vez de um force cada
+    private void sincronizar(long entrada) throws IOException {
+        if (sincronizadoAte >= entrada) {
+            return;
+        }
+        sincronizacao.lock();
+        try {
+            if (sincronizadoAte >= entrada) {
+                return;
+            }
+            long ate;
+            FileChannel atual;
+            journal.lock();
+            try {
+                ate = sequencia;
+                atual = canal;
+            } finally {
+                journal.unlock();
+            }
+            atual.force(false);
+            sincronizadoAte = ate;
+        } finally {
+            sincronizacao.unlock();
+        }
+    }
+
+    // Segmentos do journal, em ordem: <journal>.<primeira sequência do segmento>
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(caminhoJournal.getParent())) {
+            List<Path> segmentos = new ArrayList<>(arquivos
+                    .filter(arquivo -> inicioDoSegmento(arquivo) > 0)
+                    .sorted(Comparator.comparingLong(this::inicioDoSegmento))
+                    .toList());
+            // Journal de um único arquivo, de versões anteriores: vem antes de todos os segmentos
+            if (Files.exists(caminhoJournal)) {
+                segmentos.add(0, caminhoJournal);
+            }
+            return segmentos;
+        }
+    }
+
+    // 0 para o journal de versões anteriores e arquivos que não são segmentos
+    private long inicioDoSegmento(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        String prefixo = caminhoJournal.getFileName() + ".";
+        if (!nome.startsWith(prefixo)) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(nome.substring(prefixo.length()));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private FileChannel abrirSegmento(long primeiraSequencia) throws IOException {
+        Path segmento = caminhoJournal.resolveSibling(caminhoJournal.getFileName() + "." + primeiraSequencia);
+        return FileChannel.open(segmento, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void aplicar(Map<Long, Integer> deltas, long sequenciaFinal) {
+        transactionTemplate.executeWithoutResult(status -> {
+            deltas.forEach((id, delta) -> viagemRepository.descontarVagas(id, delta));
+            checkpointRepository.save(new InventarioCheckpoint(no, sequenciaFinal));
+        });
+    }
+
+    // Vagas disponíveis (32 bits altos) e reservado em memória ainda não aplicado ao banco (32 bits baixos)
+    // em um único AtomicLong: reserva, estorno, descarga e recarga veem e trocam os dois juntos,
+    // e uma recarga nunca apaga o desconto de uma reserva concorrente
+    private static final class Estoque {
+
+        private final AtomicLong estado;
+        private volatile boolean ativa;
+
+        private Estoque(int disponiveis, boolean ativa) {
+            this.estado = new AtomicLong(empacotar(disponiveis, 0));
+            this.ativa = ativa;
+        }
+
+        private int disponiveis() {
+            return disponiveisDe(estado.get());
+        }
+
+        private boolean descontar(int quantidade) {
+            long atual;
+            do {
+                atual = estado.get();
+                if (disponiveisDe(atual) < quantidade) {
+                    return false;
+                }
+            } while (!estado.compareAndSet(atual,
+                    empacotar(disponiveisDe(atual) - quantidade, pendenteDe(atual) + quantidade)));
+            return true;
+        }
+
+        private void devolver(int quantidade) {
+            estado.updateAndGet(atual -> empacotar(disponiveisDe(atual) + quantidade, pendenteDe(atual) - quantidade));
+        }
+
+        // O pendente sai para a descarga; as vagas não mudam
+        private int retirarPendente() {
+            return pendenteDe(estado.getAndUpdate(atual -> empacotar(disponiveisDe(atual), 0)));
+        }
+
+        // Descarga que falhou: o pendente volta para a próxima
+        private void devolverPendente(int delta) {
+            estado.updateAndGet(atual -> empacotar(disponiveisDe(atual), pendenteDe(atual) + delta));
+        }
+
+        // Vagas do banco menos o que ainda não chegou a ele, com o pendente lido no mesmo instante da troca
+        private void recarregar(int vagasBanco) {
+            estado.updateAndGet(atual -> empacotar(vagasBanco - pendenteDe(atual), pendenteDe(atual)));
+        }
+
+        private static long empacotar(int disponiveis, int pendente) {
+            return ((long) disponiveis << 32) | (pendente & 0xFFFFFFFFL);
+        }
+
+        private static int disponiveisDe(long estado) {
+            return (int) (estado >> 32);
+        }
+
+        private static int pendenteDe(long estado) {
+            return (int) estado;
+        }
+    }
+}
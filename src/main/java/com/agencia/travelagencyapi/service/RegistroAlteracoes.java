@@ -0,0 +1,256 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import com.agencia.travelagencyapi.model.RegistroAlteracao;
+import com.agencia.travelagencyapi.repository.RegistroAlteracaoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Coerência entre nós que compartilham o mesmo banco (travelagency.cluster.habilitado, perfil "cluster").
+// Cada alteração de viagem grava uma linha em registro_alteracao antes do commit, na mesma transação:
+// se a alteração for desfeita, o registro também é. Cada nó lê periodicamente as linhas novas dos outros nós,
+// em lotes, e republica-as como eventos remotos; os mesmos ouvintes do nó de origem (caches, contadores, índice
+// de busca, ETag, SSE) atualizam então o estado local. Sem broker: o próprio banco é a fila.
+// O atraso fica limitado pelo intervalo de leitura; se o nó ficar mais que atraso-maximo sem alcançar
+// o fim do registro (leitura falhando, travada ou atrás de um acúmulo), ele deixa de receber tráfego
+// (readiness) até ficar em dia de novo
+@Component
+@ConditionalOnProperty(name = "travelagency.cluster.habilitado", havingValue = "true")
+public class RegistroAlteracoes {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroAlteracoes.class);
+
+    private final RegistroAlteracaoRepository registroRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final String no;
+    private final int tamanhoLote;
+    private final Duration esperaLacuna;
+    private final Duration retencao;
+    private final Duration atrasoMaximo;
+
+    private final Timer atraso;
+
+    // Acessados só pela thread do agendador
+    private long ultimoLido;
+    // Ids ainda ausentes abaixo de ultimoLido (transação em andamento ou desfeita), com o instante em que faltaram
+    private final Map<Long, Instant> lacunas = new HashMap<>();
+    // Maior id até o qual todas as alterações já foram aplicadas neste nó (nenhuma lacuna abaixo dele).
+    // É a versão do catálogo no cluster: só avança depois que os ouvintes invalidaram os caches
+    private volatile long aplicadoAte;
+    // Início da última leitura que chegou ao fim do registro: tudo o que foi confirmado antes já está aplicado
+    private volatile Instant emDiaDesde = Instant.now();
+    // Guardado por "this" (verificarAtraso roda também fora da leitura)
+    private boolean recusandoTrafego;
+
+    public RegistroAlteracoes(RegistroAlteracaoRepository registroRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${travelagency.cluster.no:}") String no,
+                              @Value("${travelagency.cluster.tamanho-lote:500}") int tamanhoLote,
+                              @Value("${travelagency.cluster.espera-lacuna:30s}") Duration esperaLacuna,
+                              @Value("${travelagency.cluster.retencao:1h}") Duration retencao,
+                              @Value("${travelagency.cluster.atraso-maximo:10s}") Duration atrasoMaximo) {
+        this.registroRepository = registroRepository;
+        this.eventPublisher = eventPublisher;
+        // Leituras em transação de escrita: no perfil "replica" vão ao primário, sem somar o atraso da réplica
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.no = no.isBlank() ? identificacaoPadrao() : no;
+        this.tamanhoLote = tamanhoLote;
+        this.esperaLacuna = esperaLacuna;
+        this.retencao = retencao;
+        this.atrasoMaximo = atrasoMaximo;
+
+        this.atraso = Timer.builder("viagens.alteracoes.atraso")
+                .description("Tempo entre a alteração em outro nó e a atualização do estado local")
+                .register(meterRegistry);
+        Gauge.builder("viagens.alteracoes.idade.leitura", this,
+                        registro -> Duration.between(registro.emDiaDesde, Instant.now()).toMillis() / 1000.0)
+                .description("Segundos desde a última leitura que alcançou o fim do registro de alterações")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        // Um nó que acaba de subir carregou o estado atual do banco: só interessa o que vier depois.
+        // Ids recentes abaixo do maior já confirmado ainda podem estar em transações em andamento:
+        // os ausentes entram como lacunas, como na leitura normal
+        transactionTemplate.executeWithoutResult(status -> iniciarLeitura());
+        log.info("Registro de alterações habilitado: nó {}, lendo a partir do id {} ({} lacunas)",
+                this.no, ultimoLido, lacunas.size());
+    }
+
+    public long versaoAplicada() {
+        return aplicadoAte;
+    }
+
+    // Antes do commit, dentro da transação da alteração. Eventos remotos já estão no registro
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        if (evento.remota()) {
+            return;
+        }
+        registroRepository.save(new RegistroAlteracao(evento.viagemId(), evento.tipo(), no, Instant.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${travelagency.cluster.intervalo-leitura-ms:500}")
+    public void lerAlteracoes() {
+        Instant inicio = Instant.now();
+        try {
+            List<RegistroAlteracao> novas;
+            do {
+                novas = transactionTemplate.execute(status -> lerLote());
+                aplicar(novas);
+                atualizarAplicadoAte();
+                // Um acúmulo grande leva vários lotes: o atraso cresce enquanto isso
+                verificarAtraso();
+            } while (novas.size() >= tamanhoLote);
+            emDiaDesde = inicio;
+        } catch (RuntimeException e) {
+            log.error("Falha ao ler o registro de alterações", e);
+        }
+        verificarAtraso();
+    }
+
+    // Também agendada à parte: com a leitura travada (banco lento, ouvinte bloqueado) o atraso segue conferido.
+    // O estado local pode estar desatualizado além do limite: melhor tirar o nó do balanceador
+    @Scheduled(fixedDelayString = "${travelagency.cluster.intervalo-leitura-ms:500}")
+    public synchronized void verificarAtraso() {
+        boolean atrasado = Duration.between(emDiaDesde, Instant.now()).compareTo(atrasoMaximo) > 0;
+        if (atrasado && !recusandoTrafego) {
+            log.warn("Registro de alterações atrasado mais que {}; o nó deixa de receber tráfego", atrasoMaximo);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+            recusandoTrafego = true;
+        } else if (!atrasado && recusandoTrafego) {
+            log.info("Registro de alterações em dia; o nó volta a receber tráfego");
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            recusandoTrafego = false;
+        }
+    }
+
+    // Linhas antigas já foram lidas por todos os nós ativos; um nó parado por mais que isso recarrega ao subir.
+    // A mais recente é mantida: ela dá a versão do catálogo aos nós que subirem depois
+    @Scheduled(fixedDelayString = "${travelagency.cluster.intervalo-limpeza-ms:60000}")
+    public void removerAntigas() {
+        int removidas = transactionTemplate.execute(status -> registroRepository.removerAnterioresA(Instant.now().minus(retencao)));
+        if (removidas > 0) {
+            log.debug("{} registros de alteração removidos", removidas);
+        }
+    }
+
+    // O id é gerado no insert, logo antes do commit: linhas gravadas há mais que espera-lacuna não têm
+    // transação anterior a elas ainda aberta, e a procura por lacunas começa depois da última delas
+    private void iniciarLeitura() {
+        long ultimo = registroRepository.buscarUltimoId().orElse(0L);
+        long assentado = registroRepository.buscarUltimoIdAntesDe(Instant.now().minus(esperaLacuna)).orElse(0L);
+        long inicioJanela = Math.max(assentado, ultimo - tamanhoLote);
+        Set<Long> confirmados = new HashSet<>(registroRepository.buscarIdsDepoisDe(inicioJanela));
+        Instant agora = Instant.now();
+        for (long id = inicioJanela + 1; id < ultimo; id++) {
+            if (!confirmados.contains(id)) {
+                lacunas.put(id, agora);
+            }
+        }
+        ultimoLido = ultimo;
+        atualizarAplicadoAte();
+    }
+
+    private void atualizarAplicadoAte() {
+        aplicadoAte = lacunas.isEmpty() ? ultimoLido : Collections.min(lacunas.keySet()) - 1;
+    }
+
+    // Lacunas que apareceram desde a última leitura e o próximo lote depois do último id lido
+    private List<RegistroAlteracao> lerLote() {
+        List<RegistroAlteracao> lidas = new ArrayList<>();
+        if (!lacunas.isEmpty()) {
+            List<RegistroAlteracao> preenchidas = registroRepository.buscarPorIds(List.copyOf(lacunas.keySet()));
+            preenchidas.forEach(registro -> lacunas.remove(registro.getId()));
+            lidas.addAll(preenchidas);
+            // Depois da espera, a transação certamente foi desfeita (ou a linha já foi removida pela retenção)
+            Instant limite = Instant.now().minus(esperaLacuna);
+            lacunas.values().removeIf(desde -> desde.isBefore(limite));
+        }
+
+        List<RegistroAlteracao> novas = registroRepository.buscarDepoisDe(ultimoLido, PageRequest.of(0, tamanhoLote));
+        Instant agora = Instant.now();
+        for (RegistroAlteracao registro : novas) {
+            long ausentes = registro.getId() - ultimoLido - 1;
+            if (ausentes > tamanhoLote) {
+                // Salto da identidade (ex.: reinício do banco), não transações em andamento
+                log.warn("Registro de alterações saltou do id {} para {}", ultimoLido, registro.getId());
+            } else {
+                for (long id = ultimoLido + 1; id < registro.getId(); id++) {
+                    lacunas.put(id, agora);
+                }
+            }
+            ultimoLido = registro.getId();
+        }
+        lidas.addAll(novas);
+        return lidas;
+    }
+
+    // Fora da transação: os ouvintes reagem na hora (fallbackExecution) e leem do banco o que precisarem.
+    // Alterações repetidas da mesma viagem no lote geram um único evento
+    private void aplicar(List<RegistroAlteracao> registros) {
+        Set<AlteracaoRemota> alteracoes = new LinkedHashSet<>();
+        Instant agora = Instant.now();
+        for (RegistroAlteracao registro : registros) {
+            if (registro.getNo().equals(no)) {
+                continue;
+            }
+            alteracoes.add(new AlteracaoRemota(registro.getViagemId(), registro.getTipo()));
+            atraso.record(Duration.between(registro.getCriadoEm(), agora));
+        }
+        for (AlteracaoRemota alteracao : alteracoes) {
+            try {
+                eventPublisher.publishEvent(new ViagemAlteradaEvent(alteracao.viagemId(), alteracao.tipo(), true));
+            } catch (RuntimeException e) {
+                // A linha já foi lida: a falha de um ouvinte não pode impedir os demais nem as próximas alterações
+                log.error("Falha ao aplicar alteração remota {} da viagem {}", alteracao.tipo(), alteracao.viagemId(), e);
+            }
+        }
+    }
+
+    // host:pid, legível nos logs e único entre processos da mesma máquina
+    private static String identificacaoPadrao() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "desconhecido";
+        }
+        return host + ":" + ManagementFactory.getRuntimeMXBean().getPid();
+    }
+
+    private record AlteracaoRemota(Long viagemId, TipoAlteracao tipo) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.dto.TokenAcesso;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Tokens de acesso sem estado: "usuario|perfis|expiracao" assinado com HMAC-SHA256.
+// A verificação é local (nenhuma consulta ao banco), então qualquer nó com o mesmo segredo aceita o token.
+// Trocas de senha ou de perfil só valem para novos tokens; a validade curta limita essa janela.
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec chave;
+    private final Duration validade;
+    private final Clock relogio = Clock.systemUTC();
+    private final ThreadLocal<Mac> mac;
+
+    public TokenService(@Value("${travelagency.token.segredo:}") String segredo,
+                        @Value("${travelagency.token.validade:15m}") Duration validade) {
+        this.chave = new SecretKeySpec(chaveDe(segredo), ALGORITMO);
+        this.validade = validade;
+        this.mac = ThreadLocal.withInitial(this::novoMac);
+    }
+
+    public TokenAcesso emitir(Authentication autenticacao) {
+        long expiraEm = relogio.instant().plus(validade).getEpochSecond();
+        String perfis = autenticacao.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        String conteudo = autenticacao.getName() + "|" + perfis + "|" + expiraEm;
+
+        byte[] dados = conteudo.getBytes(StandardCharsets.UTF_8);
+        String token = BASE64.encodeToString(dados) + "." + BASE64.encodeToString(assinar(dados));
+        return new TokenAcesso(token, "Bearer", expiraEm);
+    }
+
+    // Vazio quando o token é malformado, tem assinatura inválida ou já expirou
+    public Optional<Authentication> validar(String token) {
+        int ponto = token.indexOf('.');
+        if (ponto <= 0) {
+            return Optional.empty();
+        }
+
+        byte[] dados;
+        byte[] assinatura;
+        try {
+            dados = BASE64_DECODER.decode(token.substring(0, ponto));
+            assinatura = BASE64_DECODER.decode(token.substring(ponto + 1));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(assinar(dados), assinatura)) {
+            return Optional.empty();
+        }
+
+        String[] partes = new String(dados, StandardCharsets.UTF_8).split("\\|", -1);
+        if (partes.length != 3) {
+            return Optional.empty();
+        }
+        try {
+            if (Long.parseLong(partes[2]) <= relogio.instant().getEpochSecond()) {
+                return Optional.empty();
+            }
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+
+        Collection<GrantedAuthority> perfis = partes[1].isEmpty()
+                ? AuthorityUtils.NO_AUTHORITIES
+                : AuthorityUtils.commaSeparatedStringToAuthorityList(partes[1]);
+        return Optional.of(UsernamePasswordAuthenticationToken.authenticated(partes[0], null, perfis));
+    }
+
+    private byte[] assinar(byte[] dados) {
+        return mac.get().doFinal(dados);
+    }
+
+    private Mac novoMac() {
+        try {
+            Mac hmac = Mac.getInstance(ALGORITMO);
+            hmac.init(chave);
+            return hmac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 indisponível", e);
+        }
+    }
+
+    private static byte[] chaveDe(String segredo) {
+        if (segredo == null || segredo.isBlank()) {
+            // Sem segredo configurado os tokens só valem neste processo (e até ele reiniciar)
+            log.warn("travelagency.token.segredo não configurado; usando chave aleatória local");
+            byte[] aleatoria = new byte[32];
+            new SecureRandom().nextBytes(aleatoria);
+            return aleatoria;
+        }
+        byte[] bytes = segredo.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalStateException("travelagency.token.segredo deve ter pelo menos 32 bytes");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,59 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Contador de alterações do catálogo inteiro, usado como ETag das listagens.
+// Começa no horário de inicialização para não repetir valores entre reinícios.
+// No perfil "cluster" a versão vem do registro de alterações, e nós que já aplicaram as mesmas
+// alterações respondem com o mesmo ETag, mesmo atrás de um balanceador
+@Component
+public class VersaoCatalogo {
+
+    private final AtomicLong versao = new AtomicLong(System.currentTimeMillis());
+
+    private final InvalidacaoCacheViagens invalidacao;
+    // Presente apenas com travelagency.cluster.habilitado=true
+    private final RegistroAlteracoes registroAlteracoes;
+    private final long janelaVagasMs;
+
+    public VersaoCatalogo(InvalidacaoCacheViagens invalidacao,
+                          ObjectProvider<RegistroAlteracoes> registroAlteracoes,
+                          @Value("${travelagency.cache.janela-vagas:0s}") Duration janelaVagas) {
+        this.invalidacao = invalidacao;
+        this.registroAlteracoes = registroAlteracoes.getIfAvailable();
+        this.janelaVagasMs = janelaVagas.toMillis();
+    }
+
+    public long atual() {
+        return registroAlteracoes != null ? registroAlteracoes.versaoAplicada() : versao.get();
+    }
+
+    // Com janela de vagas, páginas com vagas desatualizadas ficam em cache até expirar, sob a mesma versão.
+    // O ETag leva também o número da janela atual: ao fim dela o cliente recebe a página nova, em vez de
+    // revalidar para 304 a cópia antiga indefinidamente
+    public String etag() {
+        return janelaVagasMs == 0
+                ? "\"c" + atual() + "\""
+                : "\"c" + atual() + "-" + System.currentTimeMillis() / janelaVagasMs + "\"";
+    }
+
+    // Por último, depois da invalidação dos caches: uma versão nova nunca pode ser servida
+    // junto de uma página ainda em cache, senão o 304 manteria o cliente com dados antigos
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarViagem(ViagemAlteradaEvent evento) {
+        // Sem invalidação, o cache continua servindo a página anterior: uma versão nova não corresponderia a ela
+        if (invalidacao.invalida(evento)) {
+            versao.incrementAndGet();
+        }
+    }
+}
@@ -1,18 +1,59 @@
 package com.agencia.travelagencyapi.service;
 
+import com.agencia.travelagencyapi.config.CacheConfig;
+import com.agencia.travelagencyapi.dto.AjusteEmLote;
+import com.agencia.travelagencyapi.dto.Cursor;
+import com.agencia.travelagencyapi.dto.Facetas;
+import com.agencia.travelagencyapi.dto.FiltroViagem;
+import com.agencia.travelagencyapi.dto.ItemReserva;
+import com.agencia.travelagencyapi.dto.LinhaFacetas;
+import com.agencia.travelagencyapi.dto.PaginaCursor;
+import com.agencia.travelagencyapi.dto.ViagemResumo;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
 import com.agencia.travelagencyapi.model.Avaliacao;
 import com.agencia.travelagencyapi.repository.AvaliacaoRepository;
 import com.agencia.travelagencyapi.model.Viagem;
 import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.agencia.travelagencyapi.repository.ViagemSpecifications;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ViagemService {
@@ -23,109 +64,401 @@ public class ViagemService {
     @Autowired
     private AvaliacaoRepository avaliacaoRepository;
 
-    // NOVO MÉTODO QUE CENTRALIZA A LÓGICA DE BUSCA
-    public List<Viagem> pesquisarViagens(String destino, String categoria, BigDecimal precoMin, BigDecimal precoMax, Boolean apenasAtivas) {
-        if (destino != null && !destino.isEmpty()) {
-            return viagemRepository.findByDestinoContainingIgnoreCaseAndAtiva(destino, apenasAtivas);
-        } else if (categoria != null && !categoria.isEmpty()) {
-            return viagemRepository.findByCategoriaIgnoreCaseAndAtiva(categoria, apenasAtivas);
-        } else if (precoMin != null && precoMax != null) {
-            return viagemRepository.findByPrecoBetweenAndAtiva(precoMin, precoMax, apenasAtivas);
-        } else if (apenasAtivas) {
-            return viagemRepository.findByAtiva(true);
-        } else {
-            return viagemRepository.findAll();
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Presente apenas com travelagency.inventario.modo=memoria
+    @Autowired(required = false)
+    private InventarioVagas inventarioVagas;
+
+    @Autowired
+    private IndiceBuscaViagens indiceBusca;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    // Limites das faixas de preço usadas nas facetas
+    @Value("${travelagency.facetas.faixas-preco:1000,2500,5000,10000}")
+    private List<BigDecimal> limitesFaixaPreco;
+
+    // Reservas aceitas e recusadas (individuais e em lote), registradas uma vez para não buscar o contador a cada chamada
+    private Counter reservasAceitas;
+    private Counter reservasRecusadas;
+    private Counter lotesAceitos;
+    private Counter lotesRecusados;
+
+    // Campos alteráveis por PATCH e seus tipos
+    private static final Map<String, Class<?>> CAMPOS_ALTERAVEIS = Map.of(
+            "destino", String.class,
+            "dataPartida", LocalDate.class,
+            "dataRetorno", LocalDate.class,
+            "preco", BigDecimal.class,
+            "descricao", String.class,
+            "vagasDisponiveis", Integer.class,
+            "categoria", String.class,
+            "ativa", Boolean.class);
+
+    // Campos validados em conjunto com o estado atual da viagem: exigem carregá-la antes do UPDATE
+    private static final Set<String> CAMPOS_COM_VALIDACAO_CRUZADA = Set.of("dataPartida", "dataRetorno");
+
+    // Campos aceitos para ordenação no parâmetro "ordenarPor"
+    private static final Set<String> CAMPOS_ORDENACAO = Set.of("id", "destino", "preco", "dataPartida", "vagasDisponiveis",
+            "mediaAvaliacoes", "totalAvaliacoes");
+
+    // Tamanho de página usado quando o cliente não informa "limite", e o máximo aceito
+    private static final int LIMITE_PADRAO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+    private static final int LIMITE_SUGESTOES = 10;
+
+    @PostConstruct
+    void registrarMetricas() {
+        reservasAceitas = contadorDeReservas("individual", "aceita");
+        reservasRecusadas = contadorDeReservas("individual", "recusada");
+        lotesAceitos = contadorDeReservas("lote", "aceita");
+        lotesRecusados = contadorDeReservas("lote", "recusada");
+    }
+
+    private Counter contadorDeReservas(String operacao, String resultado) {
+        return Counter.builder("viagens.reservas")
+                .description("Pedidos de reserva de vagas")
+                .tag("operacao", operacao)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    // Contagens por categoria, faixa de preço e mês de partida para o filtro informado, em uma única consulta agregada.
+    // Compartilha o cache (e a invalidação) das pesquisas
+    @Cacheable(cacheNames = CacheConfig.PESQUISAS, key = "{'facetas', #filtro}")
+    @Transactional(readOnly = true)
+    public Facetas contarFacetas(FiltroViagem filtro) {
+        List<LinhaFacetas> linhas = viagemRepository.contarFacetas(ViagemSpecifications.comFiltro(filtro), limitesFaixaPreco);
+
+        long total = 0;
+        Map<String, Long> categorias = new TreeMap<>();
+        Map<String, Long> meses = new TreeMap<>();
+        long[] porFaixa = new long[limitesFaixaPreco.size() + 1];
+        for (LinhaFacetas linha : linhas) {
+            total += linha.quantidade();
+            if (linha.categoria() != null) {
+                categorias.merge(linha.categoria(), linha.quantidade(), Long::sum);
+            }
+            meses.merge(YearMonth.of(linha.ano(), linha.mes()).toString(), linha.quantidade(), Long::sum);
+            porFaixa[linha.faixaPreco()] += linha.quantidade();
+        }
+
+        List<Facetas.FaixaPreco> faixas = new ArrayList<>();
+        for (int i = 0; i < porFaixa.length; i++) {
+            BigDecimal de = i == 0 ? BigDecimal.ZERO : limitesFaixaPreco.get(i - 1);
+            BigDecimal ate = i < limitesFaixaPreco.size() ? limitesFaixaPreco.get(i) : null;
+            faixas.add(new Facetas.FaixaPreco(de, ate, porFaixa[i]));
+        }
+        return new Facetas(total, categorias, faixas, meses);
+    }
+
+    // Centraliza a lógica de busca: todos os filtros informados são combinados em uma única consulta,
+    // paginada por keyset a partir do cursor da página anterior.
+    // As leituras rodam em transações somente leitura: sem flush nem cópia das entidades para dirty checking,
+    // e no perfil "replica" são atendidas pela réplica
+    @Timed("viagens.servico")
+    @Cacheable(CacheConfig.PESQUISAS)
+    @Transactional(readOnly = true)
+    public PaginaCursor<ViagemResumo> pesquisarViagens(FiltroViagem filtro, String cursor, Integer limite) {
+        String campo = campoOrdenacao(filtro);
+        Sort.Direction direcao = direcaoOrdenacao(filtro);
+        int tamanho = tamanhoPagina(limite);
+
+        Specification<Viagem> spec = ViagemSpecifications.comFiltro(filtro);
+        if (cursor != null && !cursor.isEmpty()) {
+            spec = spec.and(aposCursor(Cursor.decodificar(cursor), campo, direcao));
         }
+
+        List<ViagemResumo> viagens = viagemRepository.buscarComLimite(spec, ordenacao(campo, direcao), tamanho + 1);
+        return PaginaCursor.de(viagens, tamanho, ultima -> cursorDe(ultima, campo));
     }
 
+    // Percorre todas as viagens do filtro sem montar a lista em memória (exportação em massa)
+    @Transactional(readOnly = true)
+    public void exportarViagens(FiltroViagem filtro, Consumer<ViagemResumo> consumidor) {
+        Sort sort = ordenacao(campoOrdenacao(filtro), direcaoOrdenacao(filtro));
+        try (Stream<ViagemResumo> viagens = viagemRepository.streamPorFiltro(ViagemSpecifications.comFiltro(filtro), sort)) {
+            viagens.forEach(consumidor);
+        }
+    }
+
+    private String campoOrdenacao(FiltroViagem filtro) {
+        String campo = filtro.getOrdenarPor() != null ? filtro.getOrdenarPor() : "id";
+        if (!CAMPOS_ORDENACAO.contains(campo)) {
+            throw new IllegalArgumentException("Campo de ordenação inválido: " + campo);
+        }
+        return campo;
+    }
+
+    private Sort.Direction direcaoOrdenacao(FiltroViagem filtro) {
+        return Sort.Direction.fromOptionalString(filtro.getDirecao())
+                .orElseThrow(() -> new IllegalArgumentException("Direção de ordenação inválida: " + filtro.getDirecao()));
+    }
+
+    private Sort ordenacao(String campo, Sort.Direction direcao) {
+        // O id entra como critério de desempate para manter a ordem estável entre páginas
+        Sort sort = Sort.by(direcao, campo);
+        return campo.equals("id") ? sort : sort.and(Sort.by(direcao, "id"));
+    }
+
+    private int tamanhoPagina(Integer limite) {
+        if (limite == null) {
+            return LIMITE_PADRAO;
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser um número positivo");
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    private Specification<Viagem> aposCursor(Cursor cursor, String campo, Sort.Direction direcao) {
+        if (!campo.equals(cursor.campo())) {
+            throw new IllegalArgumentException("Cursor não corresponde à ordenação informada");
+        }
+        try {
+            return switch (campo) {
+                case "destino" -> ViagemSpecifications.aposCursor(campo, direcao, cursor.valor(), cursor.id());
+                case "preco" -> ViagemSpecifications.aposCursor(campo, direcao, new BigDecimal(cursor.valor()), cursor.id());
+                case "dataPartida" -> ViagemSpecifications.aposCursor(campo, direcao, LocalDate.parse(cursor.valor()), cursor.id());
+                case "vagasDisponiveis", "totalAvaliacoes" -> ViagemSpecifications.aposCursor(campo, direcao, Integer.valueOf(cursor.valor()), cursor.id());
+                case "mediaAvaliacoes" -> ViagemSpecifications.aposCursor(campo, direcao, Double.valueOf(cursor.valor()), cursor.id());
+                default -> ViagemSpecifications.aposCursor("id", direcao, cursor.id(), cursor.id());
+            };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+
+    private Cursor cursorDe(ViagemResumo viagem, String campo) {
+        String valor = switch (campo) {
+            case "destino" -> viagem.destino();
+            case "preco" -> viagem.preco().toPlainString();
+            case "dataPartida" -> viagem.dataPartida().toString();
+            case "vagasDisponiveis" -> String.valueOf(viagem.vagasDisponiveis());
+            case "totalAvaliacoes" -> String.valueOf(viagem.totalAvaliacoes());
+            case "mediaAvaliacoes" -> String.valueOf(viagem.mediaAvaliacoes());
+            default -> null;
+        };
+        return new Cursor(campo, valor, viagem.id());
+    }
+
+    @Transactional(readOnly = true)
     public List<Viagem> listarTodasViagens() {
         return viagemRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Viagem> listarViagensAtivas() {
         return viagemRepository.findByAtiva(true);
     }
 
+    @Cacheable(CacheConfig.VIAGENS)
+    @Transactional(readOnly = true)
     public Optional<Viagem> buscarPorId(Long id) {
         return viagemRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Viagem> buscarPorDestino(String destino) {
         return viagemRepository.findByDestinoContainingIgnoreCaseAndAtiva(destino, true);
     }
 
+    // Busca textual (destino e descrição) no índice em memória, tolerante a acentos e grafias próximas.
+    // O índice devolve os ids por relevância; as viagens são carregadas em uma única consulta
+    @Transactional(readOnly = true)
+    public List<Viagem> buscarPorTexto(String texto, Integer limite) {
+        List<Long> ids = indiceBusca.buscar(texto, true, tamanhoPagina(limite));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Viagem> porId = viagemRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Viagem::getId, Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    // Autocompletar de destinos, atendido apenas pelo índice em memória
+    public List<String> sugerirDestinos(String texto, Integer limite) {
+        return indiceBusca.sugerir(texto, limite != null ? tamanhoPagina(limite) : LIMITE_SUGESTOES);
+    }
+
+    @Transactional(readOnly = true)
     public List<Viagem> buscarPorFaixaPreco(BigDecimal precoMin, BigDecimal precoMax) {
         return viagemRepository.findByPrecoBetweenAndAtiva(precoMin, precoMax, true);
     }
 
+    @Transactional(readOnly = true)
     public List<Viagem> buscarPorCategoria(String categoria) {
         return viagemRepository.findByCategoriaIgnoreCaseAndAtiva(categoria, true);
     }
-    
-    // ... resto da classe permanece igual (criarViagem, atualizarViagem, etc.)
-    
+
     @Transactional
     public Viagem criarViagem(Viagem viagem) {
         validarViagem(viagem);
         viagem.setAtiva(true);
-        return viagemRepository.save(viagem);
+        Viagem salva = viagemRepository.save(viagem);
+        publicar(salva.getId(), TipoAlteracao.CRIADA);
+        return salva;
     }
 
     @Transactional
     public Optional<Viagem> atualizarViagem(Long id, Viagem viagemAtualizada) {
         return viagemRepository.findById(id).map(viagemExistente -> {
             validarViagem(viagemAtualizada);
-            viagemAtualizada.setId(id);
-            return viagemRepository.save(viagemAtualizada);
+            // Copia os dados editáveis para a entidade carregada, preservando avaliações e seus agregados
+            copiarDados(viagemAtualizada, viagemExistente);
+            Viagem salva = viagemRepository.save(viagemExistente);
+            publicar(id, TipoAlteracao.ATUALIZADA);
+            return salva;
         });
     }
 
     @Transactional
-    public Optional<Viagem> atualizarViagemParcial(Long id, Map<String, Object> campos) {
-        Optional<Viagem> viagemOpt = viagemRepository.findById(id);
-
-        if (viagemOpt.isEmpty()) {
+    public Optional<Viagem> atualizarViagemParcial(Long id, Map<String, Object> campos, Long versaoEsperada) {
+        if (!aplicarMergePatch(id, campos, versaoEsperada)) {
             return Optional.empty();
         }
+        return viagemRepository.findById(id);
+    }
 
-        Viagem viagem = viagemOpt.get();
-        campos.forEach((campo, valor) -> {
-            switch (campo) {
-                case "destino":
-                    viagem.setDestino((String) valor);
-                    break;
-                case "dataPartida":
-                    viagem.setDataPartida(LocalDate.parse((String) valor));
-                    break;
-                case "dataRetorno":
-                    viagem.setDataRetorno(LocalDate.parse((String) valor));
-                    break;
-                case "preco":
-                    viagem.setPreco(new BigDecimal(valor.toString()));
-                    break;
-                case "descricao":
-                    viagem.setDescricao((String) valor);
-                    break;
-                case "vagasDisponiveis":
-                    viagem.setVagasDisponiveis((Integer) valor);
-                    break;
-                case "categoria":
-                    viagem.setCategoria((String) valor);
-                    break;
-                case "ativa":
-                    viagem.setAtiva((Boolean) valor);
-                    break;
+    // JSON Merge Patch: só os campos presentes no corpo mudam, e o UPDATE inclui apenas essas colunas.
+    // Sem alteração de datas, a validação não depende do estado atual da viagem e o UPDATE é feito
+    // diretamente, sem SELECT prévio. Com versaoEsperada (If-Match), uma viagem em outra versão recusa o patch
+    // com OptimisticLockingFailureException (409). Retorna false quando a viagem não existe
+    @Transactional
+    public boolean aplicarMergePatch(Long id, Map<String, Object> patch, Long versaoEsperada) {
+        Map<String, Object> valores = converterPatch(patch);
+        if (valores.isEmpty()) {
+            Optional<Viagem> viagem = viagemRepository.findById(id);
+            viagem.ifPresent(v -> conferirVersao(v.getVersao(), versaoEsperada));
+            return viagem.isPresent();
+        }
+
+        if (Collections.disjoint(valores.keySet(), CAMPOS_COM_VALIDACAO_CRUZADA)) {
+            if (viagemRepository.atualizarCampos(id, valores, versaoEsperada) == 0) {
+                // Sem linha atualizada: viagem inexistente ou, com versão esperada, alterada por outra requisição
+                if (versaoEsperada != null && viagemRepository.existsById(id)) {
+                    throw new OptimisticLockingFailureException("Viagem " + id + " não está na versão " + versaoEsperada);
+                }
+                return false;
+            }
+        } else {
+            Optional<Viagem> viagemOpt = viagemRepository.findById(id);
+            if (viagemOpt.isEmpty()) {
+                return false;
             }
+            Viagem viagem = viagemOpt.get();
+            conferirVersao(viagem.getVersao(), versaoEsperada);
+            valores.forEach((campo, valor) -> aplicarCampo(viagem, campo, valor));
+            validarViagem(viagem);
+            // Grava já, para que a viagem devolvida na resposta traga a nova versão
+            viagemRepository.flush();
+        }
+
+        publicar(id, TipoAlteracao.ATUALIZADA);
+        return true;
+    }
+
+    private void conferirVersao(Long versaoAtual, Long versaoEsperada) {
+        if (versaoEsperada != null && !versaoEsperada.equals(versaoAtual)) {
+            throw new OptimisticLockingFailureException("Versão esperada " + versaoEsperada + ", atual " + versaoAtual);
+        }
+    }
+
+    // Converte e valida cada campo isoladamente (anotações de Viagem). Campos somente leitura
+    // (id, versão, agregados de avaliação) e desconhecidos são ignorados
+    private Map<String, Object> converterPatch(Map<String, Object> patch) {
+        Map<String, Object> valores = new LinkedHashMap<>();
+        patch.forEach((campo, valor) -> {
+            Class<?> tipo = CAMPOS_ALTERAVEIS.get(campo);
+            if (tipo == null) {
+                return;
+            }
+
+            Object convertido;
+            try {
+                convertido = objectMapper.convertValue(valor, tipo);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Valor inválido para o campo " + campo);
+            }
+            if (convertido instanceof String texto && campo.equals("categoria")) {
+                convertido = texto.toUpperCase(Locale.ROOT);
+            }
+
+            Set<ConstraintViolation<Viagem>> violacoes = validator.validateValue(Viagem.class, campo, convertido);
+            if (!violacoes.isEmpty()) {
+                throw new IllegalArgumentException(violacoes.iterator().next().getMessage());
+            }
+            valores.put(campo, convertido);
         });
 
-        validarViagem(viagem);
-        return Optional.of(viagemRepository.save(viagem));
+        if (valores.containsKey("ativa") && valores.get("ativa") == null) {
+            throw new IllegalArgumentException("O campo ativa não pode ser nulo");
+        }
+        if (valores.get("vagasDisponiveis") instanceof Integer vagas && vagas < 0) {
+            throw new IllegalArgumentException("Número de vagas não pode ser negativo");
+        }
+        return valores;
+    }
+
+    private void aplicarCampo(Viagem viagem, String campo, Object valor) {
+        switch (campo) {
+            case "destino" -> viagem.setDestino((String) valor);
+            case "dataPartida" -> viagem.setDataPartida((LocalDate) valor);
+            case "dataRetorno" -> viagem.setDataRetorno((LocalDate) valor);
+            case "preco" -> viagem.setPreco((BigDecimal) valor);
+            case "descricao" -> viagem.setDescricao((String) valor);
+            case "vagasDisponiveis" -> viagem.setVagasDisponiveis((Integer) valor);
+            case "categoria" -> viagem.setCategoria((String) valor);
+            case "ativa" -> viagem.setAtiva((Boolean) valor);
+            default -> throw new IllegalArgumentException("Campo não pode ser alterado: " + campo);
+        }
+    }
+
+    // Mesmo ajuste de preço e/ou vagas para todas as viagens do filtro, em um único UPDATE
+    @Transactional
+    public int ajustarEmLote(AjusteEmLote ajuste) {
+        if (ajuste.preco() != null && ajuste.percentualPreco() != null) {
+            throw new IllegalArgumentException("Informe preco ou percentualPreco, não ambos");
+        }
+        if (ajuste.vagas() != null && ajuste.deltaVagas() != null) {
+            throw new IllegalArgumentException("Informe vagas ou deltaVagas, não ambos");
+        }
+        if (ajuste.preco() == null && ajuste.percentualPreco() == null && ajuste.vagas() == null && ajuste.deltaVagas() == null) {
+            throw new IllegalArgumentException("Nenhum ajuste informado");
+        }
+        // A coluna guarda centavos: abaixo de 0,01 o preço seria gravado como zero
+        if (ajuste.preco() != null && ajuste.preco().compareTo(new BigDecimal("0.01")) < 0) {
+            throw new IllegalArgumentException("Preço deve ser de pelo menos 0,01");
+        }
+        if (ajuste.percentualPreco() != null && ajuste.percentualPreco().compareTo(new BigDecimal("-100")) <= 0) {
+            throw new IllegalArgumentException("Percentual de preço deve ser maior que -100");
+        }
+        if (ajuste.vagas() != null && ajuste.vagas() < 0) {
+            throw new IllegalArgumentException("Número de vagas não pode ser negativo");
+        }
+
+        FiltroViagem filtro = ajuste.filtro() != null ? ajuste.filtro() : new FiltroViagem();
+        int atualizadas = viagemRepository.ajustarEmLote(ViagemSpecifications.comFiltro(filtro), ajuste);
+        if (atualizadas > 0) {
+            publicar(null, TipoAlteracao.LOTE);
+        }
+        return atualizadas;
     }
 
     @Transactional
     public boolean deletarViagem(Long id) {
         if (viagemRepository.existsById(id)) {
             viagemRepository.deleteById(id);
+            publicar(id, TipoAlteracao.REMOVIDA);
             return true;
         }
         return false;
@@ -138,11 +471,13 @@ public class ViagemService {
             Viagem viagem = viagemOpt.get();
             viagem.setAtiva(false);
             viagemRepository.save(viagem);
+            publicar(id, TipoAlteracao.DESATIVADA);
             return true;
         }
         return false;
     }
 
+    @Timed("viagens.servico")
     @Transactional
     public Avaliacao adicionarAvaliacao(Long viagemId, Avaliacao avaliacao) {
         // Busca a viagem pelo ID. Se não encontrar, lança uma exceção.
@@ -153,31 +488,175 @@ public class ViagemService {
         avaliacao.setViagem(viagem);
 
         // Salva a nova avaliação no banco de dados
-        return avaliacaoRepository.save(avaliacao);
+        Avaliacao salva = avaliacaoRepository.save(avaliacao);
+
+        // Atualiza média, total e histograma da viagem na mesma transação
+        int nota = avaliacao.getNota();
+        viagemRepository.acumularAvaliacoes(viagemId, 1, nota,
+                nota == 1 ? 1 : 0, nota == 2 ? 1 : 0, nota == 3 ? 1 : 0, nota == 4 ? 1 : 0, nota == 5 ? 1 : 0);
+        publicar(viagemId, TipoAlteracao.AVALIACAO);
+        return salva;
+    }
+
+    // Grava avaliações de várias viagens em uma transação (ingestão assíncrona).
+    // A viagem entra só como referência, sem ser carregada; os INSERTs saem em lotes JDBC
+    // e os agregados recebem um único UPDATE por viagem
+    @Transactional
+    public void adicionarAvaliacoesEmLote(Map<Long, List<Avaliacao>> avaliacoesPorViagem) {
+        List<Avaliacao> todas = new ArrayList<>();
+        avaliacoesPorViagem.forEach((viagemId, avaliacoes) -> {
+            Viagem referencia = viagemRepository.getReferenceById(viagemId);
+            avaliacoes.forEach(avaliacao -> avaliacao.setViagem(referencia));
+            todas.addAll(avaliacoes);
+        });
+        avaliacaoRepository.saveAll(todas);
+
+        avaliacoesPorViagem.forEach((viagemId, avaliacoes) -> {
+            int[] porNota = new int[6];
+            long soma = 0;
+            for (Avaliacao avaliacao : avaliacoes) {
+                porNota[avaliacao.getNota()]++;
+                soma += avaliacao.getNota();
+            }
+            int atualizadas = viagemRepository.acumularAvaliacoes(viagemId, avaliacoes.size(), soma,
+                    porNota[1], porNota[2], porNota[3], porNota[4], porNota[5]);
+            if (atualizadas == 0) {
+                throw new IllegalArgumentException("Viagem com ID " + viagemId + " não encontrada.");
+            }
+            publicar(viagemId, TipoAlteracao.AVALIACAO);
+        });
     }
 
-    public List<Avaliacao> listarAvaliacoesPorViagemId(Long viagemId) {
-        if (!viagemRepository.existsById(viagemId)) {
+    // Lista as avaliações em páginas, por "recentes" (padrão) ou por "nota"
+    @Transactional(readOnly = true)
+    public PaginaCursor<Avaliacao> listarAvaliacoesPorViagemId(Long viagemId, String ordenarPor, String cursor, Integer limite) {
+        String campo = ordenarPor != null ? ordenarPor : "recentes";
+        int tamanho = tamanhoPagina(limite);
+        Cursor posicao = cursor != null && !cursor.isEmpty() ? Cursor.decodificar(cursor) : null;
+        if (posicao != null && !campo.equals(posicao.campo())) {
+            throw new IllegalArgumentException("Cursor não corresponde à ordenação informada");
+        }
+
+        Long antesDe = posicao != null ? posicao.id() : Long.MAX_VALUE;
+        Pageable pagina = PageRequest.of(0, tamanho + 1);
+        List<Avaliacao> avaliacoes = switch (campo) {
+            case "recentes" -> avaliacaoRepository.buscarRecentes(viagemId, antesDe, pagina);
+            case "nota" -> avaliacaoRepository.buscarPorNota(viagemId, notaDoCursor(posicao), antesDe, pagina);
+            default -> throw new IllegalArgumentException("Campo de ordenação inválido: " + campo);
+        };
+
+        // A existência da viagem só precisa ser confirmada quando a primeira página vem vazia
+        if (avaliacoes.isEmpty() && posicao == null && !viagemRepository.existsById(viagemId)) {
             throw new IllegalArgumentException("Viagem com ID " + viagemId + " não encontrada.");
         }
-        return avaliacaoRepository.findByViagemId(viagemId);
+        return PaginaCursor.de(avaliacoes, tamanho,
+                ultima -> new Cursor(campo, String.valueOf(ultima.getNota()), ultima.getId()));
+    }
+
+    private Integer notaDoCursor(Cursor posicao) {
+        if (posicao == null) {
+            // Maior que qualquer nota válida, para que a primeira página comece pela nota 5
+            return Integer.MAX_VALUE;
+        }
+        try {
+            return Integer.valueOf(posicao.valor());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
     }
 
+    @Timed("viagens.servico")
     @Transactional
     public boolean reservarVaga(Long id, Integer quantidade) {
-        Optional<Viagem> viagemOpt = viagemRepository.findById(id);
-        if (viagemOpt.isPresent()) {
-            Viagem viagem = viagemOpt.get();
-            if (viagem.getAtiva() && viagem.getVagasDisponiveis() >= quantidade) {
-                viagem.setVagasDisponiveis(viagem.getVagasDisponiveis() - quantidade);
-                viagemRepository.save(viagem);
-                return true;
+        boolean reservada = reservar(id, quantidade);
+        if (reservada) {
+            reservasAceitas.increment();
+            publicar(id, TipoAlteracao.RESERVA);
+        } else {
+            reservasRecusadas.increment();
+        }
+        return reservada;
+    }
+
+    // Reserva vagas em várias viagens na mesma transação: ou todas são aceitas, ou nenhuma.
+    // Retorna o número de viagens reservadas (itens da mesma viagem contam uma vez)
+    @Transactional
+    public int reservarEmLote(List<ItemReserva> itens) {
+        // Itens da mesma viagem somados e em ordem de viagemId: cada linha é bloqueada uma só vez, e lotes
+        // concorrentes bloqueiam as linhas na mesma ordem, sem espera circular (deadlock) entre eles
+        Map<Long, Integer> porViagem = new TreeMap<>();
+        for (int i = 0; i < itens.size(); i++) {
+            ItemReserva item = itens.get(i);
+            // Um item nulo ("null" no JSON) é inválido como qualquer outro, e não uma falha interna
+            if (item == null || item.viagemId() == null || item.quantidade() == null || item.quantidade() <= 0) {
+                lotesRecusados.increment();
+                throw new IllegalArgumentException("Item " + (i + 1) + " inválido: cada item deve ter viagemId e uma quantidade positiva."
+                        + " Nenhuma reserva do lote foi realizada.");
+            }
+            try {
+                porViagem.merge(item.viagemId(), item.quantidade(), Math::addExact);
+            } catch (ArithmeticException e) {
+                lotesRecusados.increment();
+                throw new IllegalArgumentException("Quantidade total inválida para a viagem " + item.viagemId()
+                        + ". Nenhuma reserva do lote foi realizada.");
             }
         }
-        return false;
+
+        List<ItemReserva> aceitas = new ArrayList<>();
+        for (Map.Entry<Long, Integer> item : porViagem.entrySet()) {
+            boolean reservada;
+            try {
+                reservada = reservar(item.getKey(), item.getValue());
+            } catch (PessimisticLockingFailureException e) {
+                // Espera por bloqueio esgotada ou deadlock com outra transação: recusado como falta de vagas
+                reservada = false;
+            }
+            if (!reservada) {
+                // No banco, o rollback da transação desfaz os UPDATEs já feitos
+                desfazerReservasEmMemoria(aceitas);
+                lotesRecusados.increment();
+                throw new IllegalArgumentException("Não foi possível reservar " + item.getValue()
+                        + " vaga(s) na viagem " + item.getKey() + ". Nenhuma reserva do lote foi realizada.");
+            }
+            aceitas.add(new ItemReserva(item.getKey(), item.getValue()));
+        }
+        lotesAceitos.increment();
+        aceitas.forEach(item -> publicar(item.viagemId(), TipoAlteracao.RESERVA));
+        return aceitas.size();
+    }
+
+    private boolean reservar(Long id, Integer quantidade) {
+        if (inventarioVagas != null) {
+            // Modo em memória: a reserva é aceita no contador e gravada no banco em lote
+            return inventarioVagas.reservar(id, quantidade);
+        }
+        // Uma linha atualizada significa reserva aceita; zero, viagem inexistente, inativa ou sem vagas suficientes
+        return viagemRepository.reservarVagas(id, quantidade) == 1;
+    }
+
+    private void desfazerReservasEmMemoria(List<ItemReserva> aceitas) {
+        if (inventarioVagas != null) {
+            aceitas.forEach(item -> inventarioVagas.estornar(item.viagemId(), item.quantidade()));
+        }
+    }
+
+    private void publicar(Long viagemId, TipoAlteracao tipo) {
+        eventPublisher.publishEvent(new ViagemAlteradaEvent(viagemId, tipo));
+    }
+
+    private void copiarDados(Viagem origem, Viagem destino) {
+        destino.setDestino(origem.getDestino());
+        destino.setDataPartida(origem.getDataPartida());
+        destino.setDataRetorno(origem.getDataRetorno());
+        destino.setPreco(origem.getPreco());
+        destino.setDescricao(origem.getDescricao());
+        destino.setVagasDisponiveis(origem.getVagasDisponiveis());
+        destino.setCategoria(origem.getCategoria());
+        destino.setAtiva(origem.getAtiva());
     }
 
-    private void validarViagem(Viagem viagem) {
+    // Visível no pacote para a importação em massa
+    void validarViagem(Viagem viagem) {
         if (viagem.getDataPartida().isAfter(viagem.getDataRetorno())) {
             throw new IllegalArgumentException("Data de partida não pode ser posterior à data de retorno");
         }
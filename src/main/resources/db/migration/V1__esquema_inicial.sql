@@ -0,0 +1,59 @@
+-- Esquema inicial (perfil "persistente"). Deve acompanhar o mapeamento JPA, validado com ddl-auto=validate.
+
+create sequence viagem_seq start with 1 increment by 50;
+
+create table viagem (
+    id bigint not null,
+    versao bigint,
+    destino varchar(255),
+    -- Destino em minúsculas, mantido pelo banco; usado pela busca por destino
+    destino_normalizado varchar(255) generated always as (lower(destino)),
+    data_partida date,
+    data_retorno date,
+    preco numeric(38,2),
+    descricao varchar(255),
+    vagas_disponiveis integer,
+    categoria varchar(255),
+    ativa boolean,
+    total_avaliacoes integer,
+    soma_notas bigint,
+    media_avaliacoes float(53),
+    avaliacoes_nota1 integer,
+    avaliacoes_nota2 integer,
+    avaliacoes_nota3 integer,
+    avaliacoes_nota4 integer,
+    avaliacoes_nota5 integer,
+    primary key (id)
+);
+
+create table avaliacao (
+    id bigint generated by default as identity,
+    nota integer,
+    comentario varchar(255),
+    viagem_id bigint not null,
+    primary key (id),
+    constraint fk_avaliacao_viagem foreign key (viagem_id) references viagem
+);
+
+create table usuario (
+    username varchar(255) not null,
+    password varchar(255),
+    role varchar(255),
+    primary key (username)
+);
+
+create table inventario_checkpoint (
+    no varchar(255) not null,
+    sequencia bigint,
+    primary key (no)
+);
+
+-- Listagem padrão (apenas ativas) combinada com cada filtro
+create index idx_viagem_ativa_categoria on viagem (ativa, categoria);
+create index idx_viagem_ativa_preco on viagem (ativa, preco);
+create index idx_viagem_ativa_data_partida on viagem (ativa, data_partida);
+create index idx_viagem_destino_normalizado on viagem (destino_normalizado);
+
+-- Avaliações de uma viagem por recência e por nota
+create index idx_avaliacao_viagem_id on avaliacao (viagem_id, id);
+create index idx_avaliacao_viagem_nota on avaliacao (viagem_id, nota, id);
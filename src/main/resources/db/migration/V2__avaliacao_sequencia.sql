@@ -0,0 +1,7 @@
+-- Ids de avaliação passam de IDENTITY para sequência (alocação em blocos de 50), permitindo INSERTs em lote.
+-- O Hibernate usa cada valor da sequência como o fim de um bloco: ela recomeça 50 acima do maior id existente
+
+alter table avaliacao alter column id drop identity;
+
+create sequence avaliacao_seq start with 1 increment by 50;
+alter sequence avaliacao_seq restart with (select coalesce(max(id), 0) + 50 from avaliacao);
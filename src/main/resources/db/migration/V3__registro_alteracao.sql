@@ -0,0 +1,13 @@
+-- Registro de alterações de viagens lido pelos outros nós (perfil "cluster").
+-- Ids por IDENTITY (consecutivos); linhas mais antigas que travelagency.cluster.retencao são removidas
+
+create table registro_alteracao (
+    id bigint generated by default as identity,
+    viagem_id bigint,
+    tipo varchar(20) not null,
+    no varchar(100) not null,
+    criado_em timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+create index idx_registro_alteracao_criado_em on registro_alteracao (criado_em);
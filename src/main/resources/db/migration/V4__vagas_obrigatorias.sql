@@ -0,0 +1,4 @@
+-- Número de vagas obrigatório: linhas antigas sem valor passam a ter zero vagas
+update viagem set vagas_disponiveis = 0 where vagas_disponiveis is null;
+
+alter table viagem alter column vagas_disponiveis set not null;
@@ -0,0 +1,3 @@
+-- O filtro por destino busca um trecho ("like '%x%'") em destino_normalizado, e um índice B-tree só atende
+-- prefixos: o índice não era usado pela consulta e só encarecia as gravações
+drop index if exists idx_viagem_destino_normalizado;
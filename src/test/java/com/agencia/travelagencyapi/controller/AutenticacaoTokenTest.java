@@ -0,0 +1,145 @@
+package com.agencia.travelagencyapi.controller;
+
+import com.agencia.travelagencyapi.dto.TokenAcesso;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.service.TokenService;
+import com.agencia.travelagencyapi.service.ViagemService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Tokens de acesso assinados: login, uso como Bearer, expiração, adulteração e perfis carregados no token
+@SpringBootTest(properties = "travelagency.token.segredo=segredo-do-teste-de-tokens-com-32-bytes-ou-mais")
+@AutoConfigureMockMvc
+class AutenticacaoTokenTest {
+
+    private static final String SEGREDO = "segredo-do-teste-de-tokens-com-32-bytes-ou-mais";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void tokenDoLoginAutenticaEscritas() throws Exception {
+        Long viagemId = criarViagem();
+        String token = login("admin", "admin");
+
+        mockMvc.perform(reservar(viagemId).header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk());
+        // Sem credenciais, e com HTTP Basic, que continua aceito
+        mockMvc.perform(reservar(viagemId))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(reservar(viagemId).header(HttpHeaders.AUTHORIZATION,
+                        "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void loginComSenhaErradaNaoEmiteToken() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"admin\", \"password\": \"errada\"}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void tokenAdulteradoOuExpiradoERecusado() throws Exception {
+        Long viagemId = criarViagem();
+        String token = login("admin", "admin");
+
+        // Conteúdo trocado mantendo a assinatura original
+        String[] partes = token.split("\\.");
+        String outroUsuario = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(partes[0]), StandardCharsets.UTF_8)
+                        .replace("admin|", "outro|").getBytes(StandardCharsets.UTF_8));
+        mockMvc.perform(reservar(viagemId).header(HttpHeaders.AUTHORIZATION, "Bearer " + outroUsuario + "." + partes[1]))
+                .andExpect(status().isUnauthorized());
+        // Assinatura trocada
+        mockMvc.perform(reservar(viagemId).header(HttpHeaders.AUTHORIZATION, "Bearer " + partes[0] + "." + partes[0]))
+                .andExpect(status().isUnauthorized());
+
+        // Emitido com o mesmo segredo, mas já vencido
+        String expirado = new TokenService(SEGREDO, Duration.ZERO).emitir(autenticacao("admin", "ROLE_ADMIN")).token();
+        mockMvc.perform(reservar(viagemId).header(HttpHeaders.AUTHORIZATION, "Bearer " + expirado))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void perfisDoTokenNaoPodemSerAlterados() {
+        TokenService tokenService = new TokenService(SEGREDO, Duration.ofMinutes(5));
+        String token = tokenService.emitir(autenticacao("maria", "ROLE_USER")).token();
+
+        Authentication validada = tokenService.validar(token).orElseThrow();
+        assertEquals("maria", validada.getName());
+        assertEquals(List.of("ROLE_USER"), perfis(validada));
+
+        // Promover o perfil no conteúdo invalida a assinatura
+        String[] partes = token.split("\\.");
+        String promovido = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(partes[0]), StandardCharsets.UTF_8)
+                        .replace("ROLE_USER", "ROLE_ADMIN").getBytes(StandardCharsets.UTF_8));
+        assertTrue(tokenService.validar(promovido + "." + partes[1]).isEmpty());
+
+        // Outro segredo (outro ambiente) não reconhece o token
+        assertTrue(new TokenService("outro-segredo-tambem-com-mais-de-32-bytes", Duration.ofMinutes(5))
+                .validar(token).isEmpty());
+    }
+
+    private String login(String usuario, String senha) throws Exception {
+        String resposta = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + usuario + "\", \"password\": \"" + senha + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        TokenAcesso token = objectMapper.readValue(resposta, TokenAcesso.class);
+        assertEquals("Bearer", token.tipo());
+        return token.token();
+    }
+
+    private static MockHttpServletRequestBuilder reservar(Long viagemId) {
+        return post("/api/viagens/" + viagemId + "/reservar")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantidade\": 1}");
+    }
+
+    private static Authentication autenticacao(String usuario, String perfil) {
+        return UsernamePasswordAuthenticationToken.authenticated(usuario, null, AuthorityUtils.createAuthorityList(perfil));
+    }
+
+    private static List<String> perfis(Authentication autenticacao) {
+        return autenticacao.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+
+    private Long criarViagem() {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        return viagemService.criarViagem(new Viagem("Token", partida, partida.plusDays(5),
+                new BigDecimal("800.00"), "Viagem do teste de tokens", 100, "ECONOMICA")).getId();
+    }
+}
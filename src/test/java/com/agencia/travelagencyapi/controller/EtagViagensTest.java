@@ -0,0 +1,111 @@
+package com.agencia.travelagencyapi.controller;
+
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.service.VersaoCatalogo;
+import com.agencia.travelagencyapi.service.ViagemService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Requisições condicionais: ETag do detalhe (versão da viagem) e da listagem (versão do catálogo)
+class EtagViagensTest {
+
+    @Nested
+    @SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+    @AutoConfigureMockMvc
+    class SemJanelaDeVagas {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ViagemService viagemService;
+
+        @Autowired
+        private EntityManagerFactory entityManagerFactory;
+
+        // Com a viagem em cache, o 304 do detalhe não vai ao banco
+        @Test
+        void detalheRevalidaSemConsultarOBanco() throws Exception {
+            Long id = criarViagem(viagemService, "Etag detalhe");
+            String etag = etag(mockMvc, "/api/viagens/" + id);
+
+            Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            estatisticas.clear();
+            mockMvc.perform(get("/api/viagens/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+            assertEquals(0, estatisticas.getPrepareStatementCount());
+
+            assertTrue(viagemService.reservarVaga(id, 2));
+            mockMvc.perform(get("/api/viagens/" + id).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.vagasDisponiveis").value(8));
+        }
+
+        @Test
+        void listagemMudaDeEtagDepoisDeUmaAlteracao() throws Exception {
+            String etag = etag(mockMvc, "/api/viagens");
+            mockMvc.perform(get("/api/viagens").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+
+            criarViagem(viagemService, "Etag listagem");
+            assertNotEquals(etag, etag(mockMvc, "/api/viagens"));
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "travelagency.cache.janela-vagas=30s")
+    @AutoConfigureMockMvc
+    class ComJanelaDeVagas {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private ViagemService viagemService;
+
+        @Autowired
+        private VersaoCatalogo versaoCatalogo;
+
+        // A reserva não invalida o cache: a versão do catálogo fica, e o ETag traz o número da janela
+        @Test
+        void reservaNaoAvancaAVersaoQuandoNaoInvalida() throws Exception {
+            Long id = criarViagem(viagemService, "Etag janela");
+            long versao = versaoCatalogo.atual();
+
+            assertTrue(viagemService.reservarVaga(id, 1));
+
+            assertEquals(versao, versaoCatalogo.atual());
+            assertTrue(etag(mockMvc, "/api/viagens").matches("\"c" + versao + "-\\d+\""));
+        }
+    }
+
+    private static String etag(MockMvc mockMvc, String caminho) throws Exception {
+        return mockMvc.perform(get(caminho))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static Long criarViagem(ViagemService viagemService, String destino) {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        return viagemService.criarViagem(new Viagem(destino, partida, partida.plusDays(6),
+                new BigDecimal("2100.00"), "Viagem do teste de ETag", 10, "ECONOMICA")).getId();
+    }
+}
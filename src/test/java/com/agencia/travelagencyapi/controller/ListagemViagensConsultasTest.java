@@ -0,0 +1,75 @@
+package com.agencia.travelagencyapi.controller;
+
+import com.agencia.travelagencyapi.model.Avaliacao;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.service.ViagemService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// A listagem não pode carregar as avaliações de cada viagem (N+1): o número de statements
+// de GET /api/viagens não muda com a quantidade de viagens e avaliações
+@SpringBootTest(properties = {
+        "travelagency.cache.habilitado=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureMockMvc
+class ListagemViagensConsultasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void statementsDaListagemNaoCrescemComViagensEAvaliacoes() throws Exception {
+        criarViagens(3, 1);
+        long poucas = statementsDaListagem();
+
+        criarViagens(40, 5);
+        long muitas = statementsDaListagem();
+
+        assertEquals(poucas, muitas);
+        assertEquals(1, muitas);
+    }
+
+    // Statements preparados por uma listagem de até 100 viagens
+    private long statementsDaListagem() throws Exception {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        mockMvc.perform(get("/api/viagens").param("limite", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itens[0].avaliacoes").doesNotExist());
+        return estatisticas.getPrepareStatementCount();
+    }
+
+    private void criarViagens(int quantidade, int avaliacoesPorViagem) {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        for (int i = 0; i < quantidade; i++) {
+            Viagem viagem = viagemService.criarViagem(new Viagem("Destino " + i, partida, partida.plusDays(7),
+                    new BigDecimal("2000.00"), "Viagem para contagem de consultas", 30, "ECONOMICA"));
+            for (int j = 0; j < avaliacoesPorViagem; j++) {
+                Avaliacao avaliacao = new Avaliacao();
+                avaliacao.setNota(1 + j % 5);
+                avaliacao.setComentario("Avaliação " + j);
+                viagemService.adicionarAvaliacao(viagem.getId(), avaliacao);
+            }
+        }
+    }
+}
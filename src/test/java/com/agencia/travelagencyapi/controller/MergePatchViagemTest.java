@@ -0,0 +1,131 @@
+package com.agencia.travelagencyapi.controller;
+
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.agencia.travelagencyapi.service.ViagemService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PATCH /api/viagens/{id} com JSON Merge Patch: null remove o campo, as datas são validadas juntas
+// e o If-Match com uma versão antiga é recusado com 409
+@SpringBootTest
+@AutoConfigureMockMvc
+class MergePatchViagemTest {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    private static final String ADMIN = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private ViagemRepository viagemRepository;
+
+    @Test
+    void nullRemoveOCampoEMantemOsDemais() throws Exception {
+        Long id = criarViagem("Patch nulo");
+
+        mockMvc.perform(mergePatch(id, "{\"categoria\": null, \"preco\": 1500.50}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoria").value(nullValue()))
+                .andExpect(jsonPath("$.preco").value(1500.50))
+                .andExpect(jsonPath("$.destino").value("Patch nulo"));
+
+        Viagem gravada = viagemRepository.findById(id).orElseThrow();
+        assertNull(gravada.getCategoria());
+        assertEquals(10, gravada.getVagasDisponiveis());
+    }
+
+    // Campos obrigatórios não podem ser removidos
+    @Test
+    void nullEmCampoObrigatorioERecusado() throws Exception {
+        Long id = criarViagem("Patch obrigatório");
+
+        mockMvc.perform(mergePatch(id, "{\"descricao\": null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Descrição é obrigatória"));
+        mockMvc.perform(mergePatch(id, "{\"vagasDisponiveis\": null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Número de vagas é obrigatório"));
+    }
+
+    // Uma data alterada sozinha é validada contra a outra, já gravada
+    @Test
+    void datasSaoValidadasComOValorGravado() throws Exception {
+        Long id = criarViagem("Patch datas");
+        LocalDate retorno = viagemRepository.findById(id).orElseThrow().getDataRetorno();
+
+        mockMvc.perform(mergePatch(id, "{\"dataPartida\": \"" + retorno.plusDays(1) + "\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Data de partida não pode ser posterior à data de retorno"));
+        mockMvc.perform(mergePatch(id, "{\"dataRetorno\": \"2030-13-01\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.erro").value("Valor inválido para o campo dataRetorno"));
+
+        mockMvc.perform(mergePatch(id, "{\"dataRetorno\": \"" + retorno.plusDays(2) + "\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.dataRetorno").value(retorno.plusDays(2).toString()));
+    }
+
+    // If-Match com o ETag do detalhe: aceito na versão atual, 409 depois que outra alteração a mudou
+    @Test
+    void ifMatchComVersaoAntigaResponde409() throws Exception {
+        Long id = criarViagem("Patch versão");
+        String etag = mockMvc.perform(get("/api/viagens/" + id))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String novoEtag = mockMvc.perform(mergePatch(id, "{\"preco\": 1300}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, novoEtag);
+
+        // Com e sem as datas (UPDATE direto ou entidade carregada), e sem corpo na resposta
+        mockMvc.perform(mergePatch(id, "{\"preco\": 1400}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isConflict());
+        mockMvc.perform(mergePatch(id, "{\"dataRetorno\": \"" + LocalDate.now().plusYears(1) + "\"}").header(HttpHeaders.IF_MATCH, etag))
+                .andExpect(status().isConflict());
+        mockMvc.perform(mergePatch(id, "{\"preco\": 1400}").header(HttpHeaders.IF_MATCH, etag).header("Prefer", "return=minimal"))
+                .andExpect(status().isConflict());
+        assertEquals(0, new BigDecimal("1300").compareTo(viagemRepository.findById(id).orElseThrow().getPreco()));
+
+        // Uma reserva também muda a versão
+        viagemService.reservarVaga(id, 1);
+        mockMvc.perform(mergePatch(id, "{\"preco\": 1400}").header(HttpHeaders.IF_MATCH, novoEtag))
+                .andExpect(status().isConflict());
+    }
+
+    private MockHttpServletRequestBuilder mergePatch(Long id, String corpo) {
+        return patch("/api/viagens/" + id)
+                .header(HttpHeaders.AUTHORIZATION, ADMIN)
+                .contentType(MERGE_PATCH)
+                .content(corpo);
+    }
+
+    private Long criarViagem(String destino) {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        return viagemService.criarViagem(new Viagem(destino, partida, partida.plusDays(5),
+                new BigDecimal("1200.00"), "Viagem do teste de merge patch", 10, "ECONOMICA")).getId();
+    }
+}
@@ -0,0 +1,181 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Assinaturas SSE com um cliente que não lê: os demais continuam recebendo e o travado é encerrado.
+// Instâncias próprias, com conexões simuladas no lugar das do Tomcat; repositório e transações vêm do contexto
+@SpringBootTest
+class AssinaturasVagasTest {
+
+    private static final Duration ESPERA = Duration.ofSeconds(10);
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private ViagemRepository viagemRepository;
+
+    @Autowired
+    private ObjectProvider<InventarioVagas> inventarioVagas;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private AssinaturasVagas assinaturas;
+    // A próxima conexão aberta por novoEmitter; o teste abre uma por vez
+    private boolean proximaTravada;
+
+    @AfterEach
+    void encerrar() {
+        liberar.countDown();
+        assinaturas.encerrar();
+    }
+
+    // Fila pequena: o travado é descartado quando ela enche, sem atrasar o outro assinante
+    @Test
+    void assinanteComFilaCheiaEDescartado() {
+        assinaturas = novasAssinaturas(2, Duration.ofMinutes(1));
+        Long viagemId = criarViagem("SSE fila", 10);
+
+        ConexaoSimulada travada = conexao(assinaturas, viagemId, true);
+        ConexaoSimulada normal = conexao(assinaturas, viagemId, false);
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(viagemService.reservarVaga(viagemId, 1));
+            assinaturas.aoAlterarViagem(new ViagemAlteradaEvent(viagemId, TipoAlteracao.RESERVA));
+            int vagas = 10 - i;
+            aguardar(() -> normal.recebeu("\"vagasDisponiveis\":" + vagas));
+        }
+
+        aguardar(() -> travada.encerrada);
+        assertEquals(1, conexoesAbertas());
+        assertEquals(1, meterRegistry.get("viagens.sse.descartes").counter().count());
+        assertFalse(normal.encerrada);
+    }
+
+    // Sem eventos suficientes para encher a fila: o envio travado há mais do que o limite encerra a conexão
+    @Test
+    void assinanteTravadoNoEnvioEDescartado() {
+        assinaturas = novasAssinaturas(64, Duration.ofMillis(200));
+        Long viagemId = criarViagem("SSE travado", 10);
+
+        ConexaoSimulada travada = conexao(assinaturas, viagemId, true);
+        ConexaoSimulada normal = conexao(assinaturas, viagemId, false);
+
+        aguardar(() -> travada.encerrada);
+        assertEquals(1, conexoesAbertas());
+        assertTrue(normal.recebeu("\"vagasDisponiveis\":10"));
+        assertFalse(normal.encerrada);
+    }
+
+    private AssinaturasVagas novasAssinaturas(int filaPorConexao, Duration tempoMaximoEnvio) {
+        return new AssinaturasVagas(viagemRepository, inventarioVagas, transactionManager, objectMapper, meterRegistry,
+                Duration.ofMillis(20), Duration.ofMillis(50), Duration.ofMinutes(5), 100, 10,
+                filaPorConexao, tempoMaximoEnvio, 2, false) {
+            @Override
+            SseEmitter novoEmitter(long timeoutMs) {
+                return new ConexaoSimulada(timeoutMs, proximaTravada, liberar);
+            }
+        };
+    }
+
+    private ConexaoSimulada conexao(AssinaturasVagas assinaturas, Long viagemId, boolean travada) {
+        proximaTravada = travada;
+        return (ConexaoSimulada) assinaturas.assinar(List.of(viagemId)).orElseThrow();
+    }
+
+    private int conexoesAbertas() {
+        return (int) meterRegistry.get("viagens.sse.conexoes").gauge().value();
+    }
+
+    private Long criarViagem(String destino, int vagas) {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        return viagemService.criarViagem(new Viagem(destino, partida, partida.plusDays(3),
+                new BigDecimal("900.00"), "Viagem do teste de SSE", vagas, "ECONOMICA")).getId();
+    }
+
+    private static void aguardar(BooleanSupplier condicao) {
+        Instant limite = Instant.now().plus(ESPERA);
+        while (!condicao.getAsBoolean()) {
+            if (Instant.now().isAfter(limite)) {
+                throw new AssertionError("Condição não atendida em " + ESPERA);
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    // Guarda o que seria escrito na resposta; a travada bloqueia em todo envio, como um cliente que parou de ler
+    private static class ConexaoSimulada extends SseEmitter {
+
+        private final boolean travada;
+        private final CountDownLatch liberar;
+        private final List<String> recebidos = new CopyOnWriteArrayList<>();
+        private volatile boolean encerrada;
+
+        ConexaoSimulada(long timeoutMs, boolean travada, CountDownLatch liberar) {
+            super(timeoutMs);
+            this.travada = travada;
+            this.liberar = liberar;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> itens) {
+            if (travada) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            itens.forEach(item -> recebidos.add(String.valueOf(item.getData())));
+        }
+
+        @Override
+        public void complete() {
+            encerrada = true;
+            super.complete();
+        }
+
+        boolean recebeu(String trecho) {
+            return recebidos.stream().anyMatch(dado -> dado.contains(trecho));
+        }
+    }
+}
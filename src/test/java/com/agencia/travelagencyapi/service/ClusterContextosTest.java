@@ -0,0 +1,120 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.TravelAgencyApiApplication;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.RegistroAlteracaoRepository;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dois nós (perfil "cluster") na mesma JVM, sobre o mesmo banco H2 em memória: uma alteração em um nó
+// precisa chegar aos caches, contadores e versão do catálogo do outro pelo registro de alterações
+class ClusterContextosTest {
+
+    private static final Duration ESPERA = Duration.ofSeconds(10);
+
+    private static ConfigurableApplicationContext noA;
+    private static ConfigurableApplicationContext noB;
+
+    @BeforeAll
+    static void iniciar() {
+        String banco = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        noA = iniciarNo(banco, "a", 50);
+        // O nó B lê o registro mais devagar: a contagem abaixo acontece antes de ele ver a criação
+        noB = iniciarNo(banco, "b", 500);
+    }
+
+    @AfterAll
+    static void encerrar() {
+        noB.close();
+        noA.close();
+    }
+
+    @Test
+    void alteracaoEmUmNoInvalidaOCacheDoOutro() {
+        Long viagemId = servico(noA).criarViagem(novaViagem("Lisboa", 10)).getId();
+        aguardarEmDia();
+
+        // Detalhe em cache no nó B
+        assertEquals(10, servico(noB).buscarPorId(viagemId).orElseThrow().getVagasDisponiveis());
+
+        assertTrue(servico(noA).reservarVaga(viagemId, 3));
+        aguardarEmDia();
+
+        assertEquals(7, servico(noB).buscarPorId(viagemId).orElseThrow().getVagasDisponiveis());
+    }
+
+    @Test
+    void criacaoEmOutroNoNaoEContadaDuasVezes() {
+        ContadoresViagem contadoresB = noB.getBean(ContadoresViagem.class);
+        long antes = noB.getBean(ViagemRepository.class).count();
+        // Sem contagem guardada no nó B
+        contadoresB.aoFicarPronta();
+
+        servico(noA).criarViagem(novaViagem("Porto", 20));
+        // Contagem refeita no nó B depois do commit, antes de ele ler o registro: já inclui a nova viagem
+        contadoresB.atual();
+        aguardarEmDia();
+
+        assertEquals(antes + 1, contadoresB.atual().total());
+        assertEquals(noA.getBean(ContadoresViagem.class).atual(), contadoresB.atual());
+    }
+
+    // Os dois nós aplicaram tudo o que foi gravado: a mesma versão do catálogo (e o mesmo ETag)
+    private static void aguardarEmDia() {
+        VersaoCatalogo versaoA = noA.getBean(VersaoCatalogo.class);
+        VersaoCatalogo versaoB = noB.getBean(VersaoCatalogo.class);
+        long alvo = noA.getBean(RegistroAlteracaoRepository.class).buscarUltimoId().orElse(0L);
+        aguardar(() -> versaoA.atual() >= alvo && versaoB.atual() >= alvo && versaoA.atual() == versaoB.atual());
+    }
+
+    private static void aguardar(BooleanSupplier condicao) {
+        Instant limite = Instant.now().plus(ESPERA);
+        while (!condicao.getAsBoolean()) {
+            if (Instant.now().isAfter(limite)) {
+                throw new AssertionError("Os nós não ficaram em dia em " + ESPERA);
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static ViagemService servico(ConfigurableApplicationContext no) {
+        return no.getBean(ViagemService.class);
+    }
+
+    private static Viagem novaViagem(String destino, int vagas) {
+        LocalDate partida = LocalDate.now().plusMonths(3);
+        return new Viagem(destino, partida, partida.plusDays(5), new BigDecimal("1800.00"),
+                "Viagem criada em um nó do cluster", vagas, "ECONOMICA");
+    }
+
+    private static ConfigurableApplicationContext iniciarNo(String banco, String no, int intervaloLeituraMs) {
+        return new SpringApplicationBuilder(TravelAgencyApiApplication.class)
+                .profiles("cluster")
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=" + banco,
+                        "--travelagency.cluster.no=" + no,
+                        "--travelagency.cluster.intervalo-leitura-ms=" + intervaloLeituraMs,
+                        "--travelagency.token.segredo=segredo-compartilhado-pelos-nos-do-teste",
+                        "--travelagency.dados-iniciais.viagens=false");
+    }
+}
@@ -0,0 +1,127 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.dto.RelatorioImportacao;
+import com.agencia.travelagencyapi.dto.ResultadoImportacao;
+import com.agencia.travelagencyapi.model.Viagem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Índice de busca em memória: grafias equivalentes e próximas, autocompletar por prefixo e a manutenção
+// do índice pelos eventos de alteração (inclusive o LOTE da importação)
+@SpringBootTest
+class IndiceBuscaViagensTest {
+
+    private static final int LIMITE = 50;
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private ImportacaoViagemService importacaoViagemService;
+
+    @Autowired
+    private IndiceBuscaViagens indiceBusca;
+
+    // "Quioto" e "Kyoto" viram o mesmo termo; acentos e maiúsculas não importam
+    @Test
+    void grafiasEquivalentesEncontramOMesmoDestino() {
+        Long id = criarViagem("Kyoto");
+
+        assertTrue(buscar("Quioto").contains(id));
+        assertTrue(buscar("KYÔTO").contains(id));
+        assertEquals(id, viagemService.buscarPorTexto("quioto", null).get(0).getId());
+    }
+
+    @Test
+    void errosDeDigitacaoSaoTolerados() {
+        Long id = criarViagem("Marrakech");
+
+        assertTrue(buscar("Marakech").contains(id));
+        assertTrue(buscar("Marrakehc").contains(id));
+        assertFalse(buscar("Marselha").contains(id));
+    }
+
+    // Sugere pelo início do nome ou de qualquer palavra dele, e por grafia próxima quando nenhum prefixo casa
+    @Test
+    void sugestoesPorPrefixoEGrafiaProxima() {
+        criarViagem("Cidade do Cabo");
+
+        assertTrue(indiceBusca.sugerir("Cid", LIMITE).contains("Cidade do Cabo"));
+        assertTrue(indiceBusca.sugerir("cab", LIMITE).contains("Cidade do Cabo"));
+        assertTrue(indiceBusca.sugerir("cidade do c", LIMITE).contains("Cidade do Cabo"));
+        assertTrue(indiceBusca.sugerir("Cabi", LIMITE).contains("Cidade do Cabo"));
+        assertFalse(indiceBusca.sugerir("do cabo cidade", LIMITE).contains("Cidade do Cabo"));
+    }
+
+    @Test
+    void viagemDesativadaSaiDaBuscaEDasSugestoes() {
+        Long id = criarViagem("Ushuaia");
+        assertTrue(buscar("Ushuaia").contains(id));
+
+        assertTrue(viagemService.desativarViagem(id));
+
+        assertFalse(buscar("Ushuaia").contains(id));
+        assertTrue(indiceBusca.buscar("Ushuaia", false, LIMITE).contains(id));
+        assertFalse(indiceBusca.sugerir("Ushu", LIMITE).contains("Ushuaia"));
+    }
+
+    // Uma atualização troca os termos indexados; uma remoção tira a viagem do índice
+    @Test
+    void atualizacaoERemocaoMantemOIndice() {
+        Long id = criarViagem("Reykjavik");
+
+        Viagem alterada = novaViagem("Helsinque");
+        assertTrue(viagemService.atualizarViagem(id, alterada).isPresent());
+        assertFalse(buscar("Reykjavik").contains(id));
+        assertTrue(buscar("Helsinki").contains(id));
+        assertFalse(indiceBusca.sugerir("Reyk", LIMITE).contains("Reykjavik"));
+
+        assertTrue(viagemService.deletarViagem(id));
+        assertFalse(indiceBusca.buscar("Helsinque", false, LIMITE).contains(id));
+        assertFalse(indiceBusca.sugerir("Hels", LIMITE).contains("Helsinque"));
+    }
+
+    // A importação publica um único LOTE, sem ids: a conciliação indexa as viagens criadas
+    @Test
+    void viagensImportadasEntramNoIndice() throws Exception {
+        LocalDate partida = LocalDate.now().plusMonths(3);
+        String ndjson = """
+                {"destino": "Samarcanda", "dataPartida": "%1$s", "dataRetorno": "%2$s", "preco": 3100, "descricao": "Rota da seda", "vagasDisponiveis": 12}
+                {"destino": "Bucara", "dataPartida": "%1$s", "dataRetorno": "%2$s", "preco": 2900, "descricao": "Rota da seda", "vagasDisponiveis": 8}
+                """.formatted(partida, partida.plusDays(9));
+
+        RelatorioImportacao relatorio = importacaoViagemService.importar(new BufferedReader(new StringReader(ndjson)));
+        assertEquals(2, relatorio.criadas());
+
+        List<Long> ids = relatorio.resultados().stream().map(ResultadoImportacao::id).toList();
+        assertTrue(buscar("Samarkanda").contains(ids.get(0)));
+        assertTrue(buscar("Bukara").contains(ids.get(1)));
+        assertTrue(buscar("seda").containsAll(ids));
+        assertTrue(indiceBusca.sugerir("Samar", LIMITE).contains("Samarcanda"));
+    }
+
+    private List<Long> buscar(String texto) {
+        return indiceBusca.buscar(texto, true, LIMITE);
+    }
+
+    private Long criarViagem(String destino) {
+        return viagemService.criarViagem(novaViagem(destino)).getId();
+    }
+
+    private static Viagem novaViagem(String destino) {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        return new Viagem(destino, partida, partida.plusDays(7),
+                new BigDecimal("2500.00"), "Viagem do teste de busca", 20, "ECONOMICA");
+    }
+}
@@ -0,0 +1,145 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.dto.ItemReserva;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent;
+import com.agencia.travelagencyapi.event.ViagemAlteradaEvent.TipoAlteracao;
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Inventário em memória: recargas concorrentes com reservas, descarga no banco e estorno de lote recusado.
+// A descarga agendada fica espaçada; os testes a chamam diretamente
+@SpringBootTest(properties = {
+        "travelagency.inventario.modo=memoria",
+        "travelagency.inventario.journal=target/inventario-teste/inventario.journal",
+        "travelagency.inventario.intervalo-descarga-ms=3600000"})
+class InventarioVagasTest {
+
+    private static final int VAGAS = 2000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private ViagemRepository viagemRepository;
+
+    @Autowired
+    private InventarioVagas inventarioVagas;
+
+    @Autowired
+    private VersaoCatalogo versaoCatalogo;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Recargas (ATUALIZADA e LOTE) no meio das reservas não podem devolver vagas já vendidas
+    @Test
+    void recargasConcorrentesNaoVendemAlemDasVagas() throws Exception {
+        Long viagemId = criarViagem("Recarga", VAGAS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean reservando = new AtomicBoolean(true);
+        AtomicInteger aceitas = new AtomicInteger();
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < VAGAS / THREADS * 2; i++) {
+                    if (viagemService.reservarVaga(viagemId, 1)) {
+                        aceitas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> recargas = executor.submit(() -> {
+            largada.await();
+            for (int i = 0; reservando.get(); i++) {
+                // Descargas no meio: a recarga passa a ler do banco parte das reservas
+                if (i % 10 == 0) {
+                    inventarioVagas.descarregar();
+                }
+                eventPublisher.publishEvent(i % 2 == 0
+                        ? new ViagemAlteradaEvent(viagemId, TipoAlteracao.ATUALIZADA)
+                        : new ViagemAlteradaEvent(null, TipoAlteracao.LOTE));
+            }
+            return null;
+        });
+
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(2, TimeUnit.MINUTES);
+        }
+        reservando.set(false);
+        recargas.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        assertEquals(VAGAS, aceitas.get());
+        assertEquals(0, inventarioVagas.vagasDisponiveis(viagemId).orElseThrow());
+        inventarioVagas.descarregar();
+        assertEquals(0, vagasNoBanco(viagemId));
+    }
+
+    // A descarga grava no banco e invalida o detalhe em cache preenchido antes dela
+    @Test
+    void descargaGravaNoBancoEInvalidaOCache() {
+        Long viagemId = criarViagem("Descarga", 10);
+        assertTrue(viagemService.reservarVaga(viagemId, 3));
+
+        // Ainda não descarregada: o banco (e o cache preenchido agora) tem as vagas anteriores
+        assertEquals(10, viagemService.buscarPorId(viagemId).orElseThrow().getVagasDisponiveis());
+        long versaoAntes = versaoCatalogo.atual();
+
+        inventarioVagas.descarregar();
+
+        assertEquals(7, vagasNoBanco(viagemId));
+        assertEquals(7, viagemService.buscarPorId(viagemId).orElseThrow().getVagasDisponiveis());
+        assertTrue(versaoCatalogo.atual() > versaoAntes);
+    }
+
+    // Um lote com um item sem vagas suficientes devolve as vagas dos itens já aceitos
+    @Test
+    void loteRecusadoDevolveAsVagas() {
+        Long comVagas = criarViagem("Lote A", 5);
+        Long semVagas = criarViagem("Lote B", 1);
+
+        assertThrows(IllegalArgumentException.class, () -> viagemService.reservarEmLote(List.of(
+                new ItemReserva(comVagas, 2), new ItemReserva(semVagas, 2))));
+
+        assertEquals(5, inventarioVagas.vagasDisponiveis(comVagas).orElseThrow());
+        inventarioVagas.descarregar();
+        assertEquals(5, vagasNoBanco(comVagas));
+        assertEquals(1, vagasNoBanco(semVagas));
+    }
+
+    private Long criarViagem(String destino, int vagas) {
+        LocalDate partida = LocalDate.now().plusMonths(2);
+        return viagemService.criarViagem(new Viagem(destino, partida, partida.plusDays(4),
+                new BigDecimal("1200.00"), "Viagem do teste do inventário", vagas, "ECONOMICA")).getId();
+    }
+
+    private int vagasNoBanco(Long viagemId) {
+        return viagemRepository.findById(viagemId).orElseThrow().getVagasDisponiveis();
+    }
+}
@@ -0,0 +1,86 @@
+package com.agencia.travelagencyapi.service;
+
+import com.agencia.travelagencyapi.model.Viagem;
+import com.agencia.travelagencyapi.repository.ViagemRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Milhares de reservas simultâneas disputando as vagas de uma mesma viagem (UPDATE condicional no banco):
+// nenhuma vaga pode ser vendida além do disponível, e todas as vagas devem ser vendidas
+@SpringBootTest(properties = "travelagency.cache.habilitado=false")
+class ReservaConcorrenteTest {
+
+    private static final int VAGAS = 500;
+    private static final int THREADS = 32;
+    private static final int TENTATIVAS_POR_THREAD = 100;
+
+    private static final Logger log = LoggerFactory.getLogger(ReservaConcorrenteTest.class);
+
+    @Autowired
+    private ViagemService viagemService;
+
+    @Autowired
+    private ViagemRepository viagemRepository;
+
+    @Test
+    void reservasConcorrentesNuncaVendemAlemDasVagas() throws Exception {
+        LocalDate partida = LocalDate.now().plusMonths(1);
+        Long viagemId = viagemService.criarViagem(new Viagem("Concorrência", partida, partida.plusDays(5),
+                new BigDecimal("1500.00"), "Viagem disputada por várias threads", VAGAS, "ECONOMICA")).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger aceitas = new AtomicInteger();
+        AtomicInteger recusadas = new AtomicInteger();
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < TENTATIVAS_POR_THREAD; i++) {
+                    if (viagemService.reservarVaga(viagemId, 1)) {
+                        aceitas.incrementAndGet();
+                    } else {
+                        recusadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            // Propaga qualquer exceção das threads (ex.: falha de conexão ou deadlock)
+            tarefa.get(2, TimeUnit.MINUTES);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        executor.shutdown();
+
+        int total = THREADS * TENTATIVAS_POR_THREAD;
+        log.info("{} reservas em {} threads: {} aceitas, {} recusadas, {} reservas/s",
+                total, THREADS, aceitas.get(), recusadas.get(), Math.round(total / segundos));
+
+        assertEquals(VAGAS, aceitas.get());
+        assertEquals(total - VAGAS, recusadas.get());
+        Viagem viagem = viagemRepository.findById(viagemId).orElseThrow();
+        assertEquals(0, viagem.getVagasDisponiveis());
+        // Cada reserva aceita incrementa a versão uma única vez
+        assertEquals(VAGAS, viagem.getVersao().intValue());
+    }
+}